@@ -1,8 +1,17 @@
 package com.selenium;
 
+import com.selenium.dao.SecurityLogWriter;
+import com.selenium.db.DB;
+import com.selenium.inventory.HoldExpiryReaper;
+import com.selenium.inventory.HoldLeaseManager;
+import com.selenium.inventory.SeatChangeFeed;
+import com.selenium.inventory.SeatHoldEngine;
+import com.selenium.inventory.SeatStateJournal;
 import com.selenium.model.User;
 import com.selenium.payment.MockPaymentService;
 import com.selenium.payment.PaymentService;
+import com.selenium.security.ActionCounterStore;
+import com.selenium.security.EmailHeavyHitters;
 import com.selenium.ui.*;
 
 import javafx.application.Application;
@@ -13,7 +22,9 @@ import javafx.scene.control.Alert;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
 
+import java.io.IOException;
 import java.net.URL;
+import java.sql.SQLException;
 
 public class Main extends Application {
 
@@ -203,6 +214,15 @@ public class Main extends Application {
 
         primaryStage = stage;
 
+        if (ActionCounterStore.ENABLED) ActionCounterStore.get().start();
+        if (EmailHeavyHitters.ENABLED) EmailHeavyHitters.get().start();
+        if (SecurityLogWriter.ENABLED) SecurityLogWriter.get().start();
+        if (SeatStateJournal.ENABLED) startJournal();
+        SeatChangeFeed.get().start();
+        HoldExpiryReaper.get().start();
+        HoldLeaseManager.get().start();
+        if (SeatHoldEngine.ENABLED) SeatHoldEngine.get().start();
+
         primaryStage.sceneProperty().addListener((obs, oldS, newS) -> {
             applyAppCss(newS);
             forceFullScreenFit(primaryStage);
@@ -214,6 +234,31 @@ public class Main extends Application {
         });
     }
 
+    @Override
+    public void stop() {
+        if (SeatHoldEngine.ENABLED) SeatHoldEngine.get().stop();
+        HoldLeaseManager.get().stop();
+        HoldExpiryReaper.get().stop();
+        SeatChangeFeed.get().stop();
+        if (SeatStateJournal.ENABLED) SeatStateJournal.get().stop();
+        if (SecurityLogWriter.ENABLED) SecurityLogWriter.get().stop();
+        DB.shutdown();
+    }
+
+    private static void startJournal() {
+        try {
+            SeatStateJournal.get().recover();
+        } catch (IOException | SQLException ex) {
+            System.out.println("⚠ Seat journal recovery failed: " + ex.getMessage());
+        }
+
+        try {
+            SeatStateJournal.get().start();
+        } catch (IOException ex) {
+            System.out.println("⚠ Seat journal unavailable: " + ex.getMessage());
+        }
+    }
+
     public static void main(String[] args) {
         launch();
     }
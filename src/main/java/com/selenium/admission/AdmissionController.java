@@ -0,0 +1,402 @@
+package com.selenium.admission;
+
+import com.selenium.db.DB;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Virtual waiting room: per event, at most maxActive users hold an admission at a time; everyone else
+// waits in arrival order. Bookings for the event require a live admission, so the rush queues here
+// instead of on event_seats row locks. Every client runs its own process, so the queue lives in
+// PostgreSQL: one token row per admission slot and one admissions row per waiting user. Any client's
+// call for the event hands free tokens to the head of the queue; expiry is checked on every call.
+public final class AdmissionController {
+
+    public record Status(
+            long ticketId,
+            boolean admitted,
+            long position,
+            long etaMs,
+            long expiresAtMs
+    ) {}
+
+    public record QueueStats(long eventId, int active, int waiting, long admitted, long expired, double avgSessionMs) {}
+
+    public static final boolean ENABLED = Boolean.getBoolean("admission.enabled");
+
+    private static final int MAX_ACTIVE = Integer.getInteger("admission.maxActive", 50);
+    private static final long TICKET_TTL_MS = Long.getLong("admission.ticketTtlMs", 600_000);
+    private static final long WAIT_TIMEOUT_MS = Long.getLong("admission.waitTimeoutMs", 30_000);
+
+    private static final String INIT_QUEUE_SQL = """
+            INSERT INTO admission_queues (event_id, avg_session_ms)
+            VALUES (?, ?)
+            ON CONFLICT (event_id) DO NOTHING
+            """;
+
+    private static final String INIT_TOKENS_SQL = """
+            INSERT INTO admission_tokens (event_id, slot)
+            SELECT ?, g FROM generate_series(1, ?) AS g
+            ON CONFLICT (event_id, slot) DO NOTHING
+            """;
+
+    private static final String ENTER_SQL = """
+            INSERT INTO admissions (event_id, user_id, ahead, admitted_before)
+            SELECT ?, ?,
+                   (SELECT COUNT(*) FROM admissions WHERE event_id = ?),
+                   (SELECT admitted FROM admission_queues WHERE event_id = ?)
+            WHERE NOT EXISTS (
+                SELECT 1 FROM admission_tokens
+                WHERE event_id = ? AND user_id = ? AND expires_at > now()
+            )
+            ON CONFLICT (event_id, user_id) DO UPDATE
+            SET last_seen_at = now()
+            """;
+
+    private static final String HEARTBEAT_SQL =
+            "UPDATE admissions SET last_seen_at = now() WHERE event_id = ? AND user_id = ?";
+
+    // tokens whose admission ran out; returns how many, for the session average
+    private static final String RELEASE_EXPIRED_SQL = """
+            WITH gone AS (
+                SELECT slot
+                FROM admission_tokens
+                WHERE event_id = ?
+                  AND expires_at <= now()
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE admission_tokens t
+            SET ticket_id = NULL, user_id = NULL, admitted_at = NULL, expires_at = NULL
+            FROM gone g
+            WHERE t.event_id = ?
+              AND t.slot = g.slot
+            """;
+
+    // silent waiters are only looked for near the head, which is where they would block anyone
+    private static final String DROP_SILENT_SQL = """
+            DELETE FROM admissions
+            WHERE ticket_id IN (
+                SELECT ticket_id
+                FROM admissions
+                WHERE event_id = ?
+                ORDER BY ticket_id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+              AND last_seen_at < now() - (? * INTERVAL '1 millisecond')
+            """;
+
+    // pairs the k-th free token with the k-th waiting ticket; rows another client is
+    // admitting right now are skipped, not waited for
+    private static final String ADMIT_SQL = """
+            WITH free AS (
+                SELECT slot, row_number() OVER (ORDER BY slot) AS k
+                FROM (
+                    SELECT slot
+                    FROM admission_tokens
+                    WHERE event_id = ?
+                      AND ticket_id IS NULL
+                    ORDER BY slot
+                    FOR UPDATE SKIP LOCKED
+                ) f
+            ),
+            head AS (
+                SELECT ticket_id, user_id, row_number() OVER (ORDER BY ticket_id) AS k
+                FROM (
+                    SELECT ticket_id, user_id
+                    FROM admissions
+                    WHERE event_id = ?
+                    ORDER BY ticket_id
+                    LIMIT (SELECT COUNT(*) FROM free)
+                    FOR UPDATE SKIP LOCKED
+                ) w
+            ),
+            taken AS (
+                DELETE FROM admissions a
+                USING head h
+                WHERE a.ticket_id = h.ticket_id
+            )
+            UPDATE admission_tokens t
+            SET ticket_id = h.ticket_id,
+                user_id = h.user_id,
+                admitted_at = now(),
+                expires_at = now() + (? * INTERVAL '1 millisecond')
+            FROM free f
+            JOIN head h ON h.k = f.k
+            WHERE t.event_id = ?
+              AND t.slot = f.slot
+            """;
+
+    private static final String COUNT_ADMITTED_SQL =
+            "UPDATE admission_queues SET admitted = admitted + ? WHERE event_id = ?";
+
+    // n sessions of sessionMs folded into the moving average at once
+    private static final String SESSIONS_SQL = """
+            UPDATE admission_queues
+            SET expired = expired + ?,
+                avg_session_ms = ? + (avg_session_ms - ?) * power(0.9::float8, ?)
+            WHERE event_id = ?
+            """;
+
+    private static final String LEAVE_TOKEN_SQL = """
+            WITH held AS (
+                SELECT slot, admitted_at, expires_at
+                FROM admission_tokens
+                WHERE event_id = ?
+                  AND user_id = ?
+                FOR UPDATE
+            )
+            UPDATE admission_tokens t
+            SET ticket_id = NULL, user_id = NULL, admitted_at = NULL, expires_at = NULL
+            FROM held h
+            WHERE t.event_id = ?
+              AND t.slot = h.slot
+            RETURNING h.admitted_at, h.expires_at > now() AS live
+            """;
+
+    private static final String LEAVE_QUEUE_SQL =
+            "DELETE FROM admissions WHERE event_id = ? AND user_id = ?";
+
+    private static final String ADMITTED_SQL = """
+            SELECT 1
+            FROM admission_tokens
+            WHERE event_id = ?
+              AND user_id = ?
+              AND expires_at > now()
+            """;
+
+    private static final String STATUS_SQL = """
+            SELECT
+                t.ticket_id AS active_ticket,
+                t.expires_at,
+                a.ticket_id AS waiting_ticket,
+                a.ahead,
+                a.admitted_before,
+                q.admitted,
+                q.avg_session_ms
+            FROM admission_queues q
+            LEFT JOIN admission_tokens t
+                   ON t.event_id = q.event_id
+                  AND t.user_id = ?
+                  AND t.expires_at > now()
+            LEFT JOIN admissions a
+                   ON a.event_id = q.event_id
+                  AND a.user_id = ?
+            WHERE q.event_id = ?
+            """;
+
+    private static final String STATS_SQL = """
+            SELECT
+                q.admitted,
+                q.expired,
+                q.avg_session_ms,
+                (SELECT COUNT(*) FROM admission_tokens WHERE event_id = q.event_id AND expires_at > now()) AS active,
+                (SELECT COUNT(*) FROM admissions WHERE event_id = q.event_id) AS waiting
+            FROM admission_queues q
+            WHERE q.event_id = ?
+            """;
+
+    private static final AdmissionController INSTANCE = new AdmissionController();
+
+    // events whose queue and token rows this process has already made sure of
+    private final Set<Long> initialized = ConcurrentHashMap.newKeySet();
+
+    private AdmissionController() {}
+
+    public static AdmissionController get() {
+        return INSTANCE;
+    }
+
+
+    // joins the queue, or returns the ticket the user already has for the event
+    public Status enter(long eventId, long userId) throws SQLException {
+        try (Connection con = DB.getConnection()) {
+            init(con, eventId);
+
+            try (PreparedStatement ps = con.prepareStatement(ENTER_SQL)) {
+                ps.setLong(1, eventId);
+                ps.setLong(2, userId);
+                ps.setLong(3, eventId);
+                ps.setLong(4, eventId);
+                ps.setLong(5, eventId);
+                ps.setLong(6, userId);
+                ps.executeUpdate();
+            }
+
+            advance(con, eventId);
+            return describe(con, eventId, userId);
+        }
+    }
+
+    // also the heartbeat of a waiting user; a ticket not polled for waitTimeoutMs loses its place
+    public Status status(long eventId, long userId) throws SQLException {
+        try (Connection con = DB.getConnection()) {
+            init(con, eventId);
+
+            try (PreparedStatement ps = con.prepareStatement(HEARTBEAT_SQL)) {
+                ps.setLong(1, eventId);
+                ps.setLong(2, userId);
+                ps.executeUpdate();
+            }
+
+            advance(con, eventId);
+            return describe(con, eventId, userId);
+        }
+    }
+
+    public void leave(long eventId, long userId) throws SQLException {
+        try (Connection con = DB.getConnection()) {
+            try (PreparedStatement ps = con.prepareStatement(LEAVE_TOKEN_SQL)) {
+                ps.setLong(1, eventId);
+                ps.setLong(2, userId);
+                ps.setLong(3, eventId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next() && rs.getBoolean("live")) {
+                        Timestamp at = rs.getTimestamp("admitted_at");
+                        sessions(con, eventId, 0, 1, System.currentTimeMillis() - at.getTime());
+                    }
+                }
+            }
+
+            try (PreparedStatement ps = con.prepareStatement(LEAVE_QUEUE_SQL)) {
+                ps.setLong(1, eventId);
+                ps.setLong(2, userId);
+                ps.executeUpdate();
+            }
+
+            advance(con, eventId);
+        }
+    }
+
+    public boolean isAdmitted(long eventId, long userId) throws SQLException {
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(ADMITTED_SQL)) {
+
+            ps.setLong(1, eventId);
+            ps.setLong(2, userId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    public void requireAdmitted(long eventId, long userId) throws SQLException {
+        if (!isAdmitted(eventId, userId))
+            throw new SQLException("Not admitted to this event yet, or the admission expired.");
+    }
+
+    public QueueStats getStats(long eventId) throws SQLException {
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(STATS_SQL)) {
+
+            ps.setLong(1, eventId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return new QueueStats(eventId, 0, 0, 0, 0, TICKET_TTL_MS / 2.0);
+
+                return new QueueStats(eventId, rs.getInt("active"), rs.getInt("waiting"),
+                        rs.getLong("admitted"), rs.getLong("expired"), rs.getDouble("avg_session_ms"));
+            }
+        }
+    }
+
+
+    private void init(Connection con, long eventId) throws SQLException {
+        if (initialized.contains(eventId)) return;
+
+        try (PreparedStatement ps = con.prepareStatement(INIT_QUEUE_SQL)) {
+            ps.setLong(1, eventId);
+            ps.setDouble(2, TICKET_TTL_MS / 2.0);
+            ps.executeUpdate();
+        }
+
+        // a larger maxActive adds slots; a smaller one leaves the extra slots in use by other clients
+        try (PreparedStatement ps = con.prepareStatement(INIT_TOKENS_SQL)) {
+            ps.setLong(1, eventId);
+            ps.setInt(2, MAX_ACTIVE);
+            ps.executeUpdate();
+        }
+
+        initialized.add(eventId);
+    }
+
+    // frees expired tokens, drops silent waiters at the head, then admits from the head while tokens are free
+    private void advance(Connection con, long eventId) throws SQLException {
+        int expired;
+        try (PreparedStatement ps = con.prepareStatement(RELEASE_EXPIRED_SQL)) {
+            ps.setLong(1, eventId);
+            ps.setLong(2, eventId);
+            expired = ps.executeUpdate();
+        }
+        if (expired > 0) sessions(con, eventId, expired, expired, TICKET_TTL_MS);
+
+        try (PreparedStatement ps = con.prepareStatement(DROP_SILENT_SQL)) {
+            ps.setLong(1, eventId);
+            ps.setInt(2, MAX_ACTIVE * 2);
+            ps.setLong(3, WAIT_TIMEOUT_MS);
+            ps.executeUpdate();
+        }
+
+        int admitted;
+        try (PreparedStatement ps = con.prepareStatement(ADMIT_SQL)) {
+            ps.setLong(1, eventId);
+            ps.setLong(2, eventId);
+            ps.setLong(3, TICKET_TTL_MS);
+            ps.setLong(4, eventId);
+            admitted = ps.executeUpdate();
+        }
+
+        if (admitted > 0) {
+            try (PreparedStatement ps = con.prepareStatement(COUNT_ADMITTED_SQL)) {
+                ps.setInt(1, admitted);
+                ps.setLong(2, eventId);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    private static void sessions(Connection con, long eventId, int expired, int n, long sessionMs)
+            throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(SESSIONS_SQL)) {
+            ps.setInt(1, expired);
+            ps.setDouble(2, sessionMs);
+            ps.setDouble(3, sessionMs);
+            ps.setInt(4, n);
+            ps.setLong(5, eventId);
+            ps.executeUpdate();
+        }
+    }
+
+    // position counts everyone who was waiting when the ticket was taken, less those admitted since,
+    // so like before it is an upper bound that only moves forward
+    private static Status describe(Connection con, long eventId, long userId) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(STATUS_SQL)) {
+            ps.setLong(1, userId);
+            ps.setLong(2, userId);
+            ps.setLong(3, eventId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return new Status(0, false, -1, -1, 0);
+
+                long active = rs.getLong("active_ticket");
+                if (!rs.wasNull())
+                    return new Status(active, true, 0, 0, rs.getTimestamp("expires_at").getTime());
+
+                long waiting = rs.getLong("waiting_ticket");
+                if (rs.wasNull()) return new Status(0, false, -1, -1, 0);
+
+                long admittedSince = rs.getLong("admitted") - rs.getLong("admitted_before");
+                long position = Math.max(1, rs.getLong("ahead") + 1 - admittedSince);
+                long etaMs = (long) Math.ceil((double) position / MAX_ACTIVE) * (long) rs.getDouble("avg_session_ms");
+                return new Status(waiting, false, position, etaMs, 0);
+            }
+        }
+    }
+}
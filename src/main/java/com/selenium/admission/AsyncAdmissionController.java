@@ -0,0 +1,41 @@
+package com.selenium.admission;
+
+import com.selenium.dao.DaoExecutor;
+
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncAdmissionController {
+
+    private static final DaoExecutor EXECUTOR = DaoExecutor.fromSystemProperties("admission");
+
+    private final AdmissionController controller;
+
+    public AsyncAdmissionController() {
+        this(AdmissionController.get());
+    }
+
+    public AsyncAdmissionController(AdmissionController controller) {
+        this.controller = controller;
+    }
+
+    public static DaoExecutor executor() {
+        return EXECUTOR;
+    }
+
+
+    // joining and leaving run to completion, so the ticket the user was told about is the one that exists
+    public CompletableFuture<AdmissionController.Status> enter(long eventId, long userId) {
+        return EXECUTOR.submitWrite(() -> controller.enter(eventId, userId));
+    }
+
+    public CompletableFuture<AdmissionController.Status> status(long eventId, long userId) {
+        return EXECUTOR.submit(() -> controller.status(eventId, userId));
+    }
+
+    public CompletableFuture<Void> leave(long eventId, long userId) {
+        return EXECUTOR.submitWrite(() -> {
+            controller.leave(eventId, userId);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.selenium.dao;
+
+import com.selenium.model.BookingHistoryItem;
+import com.selenium.model.User;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncBookingDAO {
+
+    private static final DaoExecutor EXECUTOR = DaoExecutor.fromSystemProperties("booking");
+
+    private final BookingDAO dao;
+
+    public AsyncBookingDAO() {
+        this(new BookingDAO());
+    }
+
+    public AsyncBookingDAO(BookingDAO dao) {
+        this.dao = dao;
+    }
+
+    public static DaoExecutor executor() {
+        return EXECUTOR;
+    }
+
+
+    public CompletableFuture<Long> bookSingleSeat(User user, long eventId, long seatId, BigDecimal price) {
+        return EXECUTOR.submitWrite(() -> dao.bookSingleSeat(user, eventId, seatId, price));
+    }
+
+    public CompletableFuture<Long> bookSeats(User user, long eventId, List<Long> seatIds) {
+        return EXECUTOR.submitWrite(() -> dao.bookSeats(user, eventId, seatIds));
+    }
+
+    public CompletableFuture<Boolean> canStartPayment(long userId, long bookingId) {
+        return EXECUTOR.submit(() -> dao.canStartPayment(userId, bookingId));
+    }
+
+    public CompletableFuture<Void> payBooking(long userId, long bookingId) {
+        return EXECUTOR.submitWrite(() -> {
+            dao.payBooking(userId, bookingId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> cancelBooking(long userId, long bookingId) {
+        return EXECUTOR.submitWrite(() -> {
+            dao.cancelBooking(userId, bookingId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<BookingHistoryItem>> getBookingHistory(long userId) {
+        return EXECUTOR.submit(() -> dao.getBookingHistory(userId));
+    }
+}
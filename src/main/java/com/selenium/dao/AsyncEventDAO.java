@@ -0,0 +1,38 @@
+package com.selenium.dao;
+
+import com.selenium.model.Event;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncEventDAO {
+
+    private static final DaoExecutor EXECUTOR = DaoExecutor.fromSystemProperties("event");
+
+    private final EventDAO dao;
+
+    public AsyncEventDAO() {
+        this(new EventDAO());
+    }
+
+    public AsyncEventDAO(EventDAO dao) {
+        this.dao = dao;
+    }
+
+    public static DaoExecutor executor() {
+        return EXECUTOR;
+    }
+
+
+    public CompletableFuture<List<Event>> getActiveEvents() {
+        return EXECUTOR.submit(dao::getActiveEvents);
+    }
+
+    public CompletableFuture<List<Event>> getRecommendedEventsForUser(long userId, int limit) {
+        return EXECUTOR.submit(() -> dao.getRecommendedEventsForUser(userId, limit));
+    }
+
+    public CompletableFuture<List<Event>> getAllEventsAdmin() {
+        return EXECUTOR.submit(dao::getAllEventsAdmin);
+    }
+}
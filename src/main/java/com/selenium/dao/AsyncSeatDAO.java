@@ -0,0 +1,71 @@
+package com.selenium.dao;
+
+import com.selenium.model.SeatDelta;
+import com.selenium.model.SeatInfo;
+import com.selenium.model.SeatMap;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncSeatDAO {
+
+    private static final DaoExecutor EXECUTOR = DaoExecutor.fromSystemProperties("seat");
+
+    private final SeatDAO dao;
+
+    public AsyncSeatDAO() {
+        this(new SeatDAO());
+    }
+
+    public AsyncSeatDAO(SeatDAO dao) {
+        this.dao = dao;
+    }
+
+    public static DaoExecutor executor() {
+        return EXECUTOR;
+    }
+
+
+    public CompletableFuture<List<SeatInfo>> getSeatsForEvent(long eventId) {
+        return EXECUTOR.submit(() -> dao.getSeatsForEvent(eventId));
+    }
+
+    public CompletableFuture<SeatDelta> getSeatChangesSince(long eventId, long version) {
+        return EXECUTOR.submit(() -> dao.getSeatChangesSince(eventId, version));
+    }
+
+    public CompletableFuture<SeatMap> getSeatMapForEvent(long eventId) {
+        return EXECUTOR.submit(() -> dao.getSeatMapForEvent(eventId));
+    }
+
+    public CompletableFuture<List<SeatInfo>> findBestAvailable(long eventId,
+                                                               int count,
+                                                               String preferredSection,
+                                                               BigDecimal maxPrice) {
+        return EXECUTOR.submit(() -> dao.findBestAvailable(eventId, count, preferredSection, maxPrice));
+    }
+
+    public CompletableFuture<List<String>> getSectionsForEvent(long eventId) {
+        return EXECUTOR.submit(() -> dao.getSectionsForEvent(eventId));
+    }
+
+    public CompletableFuture<Integer> countSeatsInVenue(long venueId) {
+        return EXECUTOR.submit(() -> dao.countSeatsInVenue(venueId));
+    }
+
+    public CompletableFuture<Integer> generateSeatsForVenue(long venueId,
+                                                            List<String> sections,
+                                                            List<String> rows,
+                                                            int seatsPerRow,
+                                                            SeatBulkLoader.ProgressListener listener) {
+        return EXECUTOR.submitWrite(() -> dao.generateSeatsForVenue(venueId, sections, rows, seatsPerRow, listener));
+    }
+
+    public CompletableFuture<Integer> attachVenueSeatsToEvent(long eventId,
+                                                              long venueId,
+                                                              BigDecimal price,
+                                                              SeatBulkLoader.ProgressListener listener) {
+        return EXECUTOR.submitWrite(() -> dao.attachVenueSeatsToEvent(eventId, venueId, price, listener));
+    }
+}
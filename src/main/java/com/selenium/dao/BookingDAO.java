@@ -1,6 +1,13 @@
 package com.selenium.dao;
 
+import com.selenium.admission.AdmissionController;
 import com.selenium.db.DB;
+import com.selenium.db.TransactionTemplate;
+import com.selenium.inventory.HoldExpiryReaper;
+import com.selenium.inventory.HoldLeaseManager;
+import com.selenium.inventory.SeatChangeFeed.SeatChange;
+import com.selenium.inventory.SeatHoldEngine;
+import com.selenium.inventory.SeatInventoryCache;
 import com.selenium.model.BookingHistoryItem;
 import com.selenium.model.User;
 
@@ -8,13 +15,43 @@ import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class BookingDAO {
 
+    public enum BookingMode { MULTI_STATEMENT, SINGLE_ROUND_TRIP }
+
+    public record BookingAttempt(long bookingId, String failure) {
+        public boolean succeeded() { return failure == null; }
+    }
+
+    public static final String FAIL_BLOCKED = "BLOCKED";
+    public static final String FAIL_NOT_AVAILABLE = "NOT_AVAILABLE";
+
+    private static final BookingMode MODE =
+            BookingMode.valueOf(System.getProperty("booking.mode", BookingMode.SINGLE_ROUND_TRIP.name()));
+
     private final SecurityLogDAO securityLogDAO = new SecurityLogDAO();
+    private final SeatAbuseLedgerDAO seatAbuseLedgerDAO = new SeatAbuseLedgerDAO();
     private static final int SEAT_ABUSE_LIMIT = 3;
 
+    // above the engine's 10 s persist transaction, so a slow flush is still waited for
+    private static final long HOLD_AWAIT_MS = Long.getLong("seat.engine.awaitMs", 30_000);
+
+    private static final TransactionTemplate BOOK_TX = new TransactionTemplate(
+            "BookingDAO.bookSingleSeat", Connection.TRANSACTION_READ_COMMITTED, 5_000);
+    private static final TransactionTemplate BOOK_SEATS_TX = new TransactionTemplate(
+            "BookingDAO.bookSeats", Connection.TRANSACTION_READ_COMMITTED, 5_000);
+    private static final TransactionTemplate PAY_TX = new TransactionTemplate(
+            "BookingDAO.payBooking", Connection.TRANSACTION_READ_COMMITTED, 5_000);
+    private static final TransactionTemplate CANCEL_TX = new TransactionTemplate(
+            "BookingDAO.cancelBooking", Connection.TRANSACTION_READ_COMMITTED, 5_000);
+
 
 
     public long bookSingleSeat(User user,
@@ -25,12 +62,22 @@ public class BookingDAO {
         if (user == null)
             throw new SQLException("User required");
 
+        // tryBookSingleSeat checks admission itself
+        if (MODE == BookingMode.SINGLE_ROUND_TRIP || SeatHoldEngine.ENABLED) {
+            BookingAttempt attempt = tryBookSingleSeat(user, eventId, seatId, price);
 
-        int expiredCount = securityLogDAO.countByUserAndAction(
-                user.getUserId(),
-                "BOOK_EXPIRED_SEAT_" + seatId,
-                525600
-        );
+            if (FAIL_BLOCKED.equals(attempt.failure()))
+                throw new SQLException("Seat permanently blocked due to abuse.");
+            if (FAIL_NOT_AVAILABLE.equals(attempt.failure()))
+                throw new SQLException("Seat not available.");
+
+            return attempt.bookingId();
+        }
+
+        if (AdmissionController.ENABLED)
+            AdmissionController.get().requireAdmitted(eventId, user.getUserId());
+
+        int expiredCount = seatAbuseLedgerDAO.countRecentExpiries(user.getUserId(), seatId);
 
         if (expiredCount >= SEAT_ABUSE_LIMIT) {
 
@@ -63,78 +110,374 @@ public class BookingDAO {
                 "INSERT INTO booking_items (booking_id, seat_id, price, event_id) " +
                         "VALUES (?, ?, ?, ?)";
 
-        try (Connection con = DB.getConnection()) {
+        Timestamp expiresAt = HoldLeaseManager.get().newLease();
+
+        long bookingId = BOOK_TX.execute(con -> {
+
+            try (PreparedStatement ps = con.prepareStatement(holdSeatSql)) {
+                ps.setLong(1, user.getUserId());
+                ps.setTimestamp(2, expiresAt);
+                ps.setLong(3, eventId);
+                ps.setLong(4, seatId);
+
+                if (ps.executeUpdate() == 0) {
+
+                    securityLogDAO.log(
+                            "INFO",
+                            "BOOK_FAIL",
+                            user.getUserId(),
+                            user.getEmail(),
+                            "Seat not available seatId=" + seatId
+                    );
+
+                    throw new SQLException("Seat not available.");
+                }
+            }
+
+            long id;
+
+            try (PreparedStatement ps =
+                         con.prepareStatement(insertBookingSql)) {
+
+                ps.setLong(1, user.getUserId());
+                ps.setLong(2, eventId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    id = rs.getLong(1);
+                }
+            }
+
+            try (PreparedStatement ps =
+                         con.prepareStatement(insertItemSql)) {
+
+                ps.setLong(1, id);
+                ps.setLong(2, seatId);
+                ps.setBigDecimal(3, price);
+                ps.setLong(4, eventId);
+                ps.executeUpdate();
+            }
+
+            return id;
+        });
+
+        DB.markWrite(user.getUserId());
+
+        HoldExpiryReaper.get().schedule(eventId, seatId, expiresAt);
+
+        if (SeatInventoryCache.ENABLED)
+            SeatInventoryCache.get().invalidateState(eventId);
+
+        securityLogDAO.log(
+                "INFO",
+                "BOOK_OK",
+                user.getUserId(),
+                user.getEmail(),
+                "Booked seatId=" + seatId
+        );
+
+        return bookingId;
+    }
+
+
+    public BookingAttempt tryBookSingleSeat(User user,
+                                            long eventId,
+                                            long seatId,
+                                            BigDecimal price) throws SQLException {
+
+        if (user == null)
+            throw new SQLException("User required");
+
+        if (AdmissionController.ENABLED)
+            AdmissionController.get().requireAdmitted(eventId, user.getUserId());
+
+        // abuse check, hold, booking header and item in one statement / one implicit transaction
+        String sql = """
+            WITH abuse AS (
+                SELECT COUNT(*) AS n
+                FROM seat_abuse_ledger l
+                CROSS JOIN LATERAL unnest(l.expired_at) AS e(at)
+                WHERE l.user_id = ?
+                  AND l.seat_id = ?
+                  AND e.at >= now() - INTERVAL '525600 minutes'
+            ),
+            held AS (
+                UPDATE event_seats
+                SET state='HELD',
+                    held_by_user_id=?,
+                    hold_expires_at=?
+                WHERE event_id=?
+                  AND seat_id=?
+                  AND state='AVAILABLE'
+                  AND (SELECT n FROM abuse) < ?
+                RETURNING event_id, seat_id, version
+            ),
+            booking AS (
+                INSERT INTO bookings (user_id, event_id, status)
+                SELECT ?, event_id, 'PENDING'
+                FROM held
+                RETURNING booking_id, event_id
+            ),
+            item AS (
+                INSERT INTO booking_items (booking_id, seat_id, price, event_id)
+                SELECT b.booking_id, h.seat_id, ?, h.event_id
+                FROM booking b
+                JOIN held h ON h.event_id = b.event_id
+                RETURNING booking_id
+            )
+            SELECT
+                (SELECT booking_id FROM item) AS booking_id,
+                (SELECT n FROM abuse) AS abuse_count,
+                (SELECT version FROM held) AS seat_version
+        """;
+
+        long userId = user.getUserId();
+        Timestamp expiresAt = HoldLeaseManager.get().newLease();
+
+        long bookingId;
+        int abuseCount;
+        long seatVersion;
+
+        if (SeatHoldEngine.ENABLED) {
+            SeatHoldEngine.Hold hold = await(SeatHoldEngine.get().hold(eventId, seatId, userId, price, expiresAt));
+
+            bookingId = hold.bookingId();
+            abuseCount = FAIL_BLOCKED.equals(hold.failure()) ? SEAT_ABUSE_LIMIT : 0;
+            seatVersion = hold.version();
+
+        } else {
+            try (Connection con = DB.getConnection();
+                 PreparedStatement ps = con.prepareStatement(sql)) {
+
+                ps.setLong(1, userId);
+                ps.setLong(2, seatId);
+                ps.setLong(3, userId);
+                ps.setTimestamp(4, expiresAt);
+                ps.setLong(5, eventId);
+                ps.setLong(6, seatId);
+                ps.setInt(7, SEAT_ABUSE_LIMIT);
+                ps.setLong(8, userId);
+                ps.setBigDecimal(9, price);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    bookingId = rs.getLong("booking_id");
+                    if (rs.wasNull()) bookingId = 0;
+                    abuseCount = rs.getInt("abuse_count");
+                    seatVersion = rs.getLong("seat_version");
+                }
+            }
+        }
+
+        if (bookingId == 0 && abuseCount >= SEAT_ABUSE_LIMIT) {
+            securityLogDAO.log("WARN", "BOOK_BLOCKED", userId, user.getEmail(),
+                    "Seat permanently blocked seatId=" + seatId);
+            return new BookingAttempt(0, FAIL_BLOCKED);
+        }
+
+        if (bookingId == 0) {
+            securityLogDAO.log("INFO", "BOOK_FAIL", userId, user.getEmail(),
+                    "Seat not available seatId=" + seatId);
+            return new BookingAttempt(0, FAIL_NOT_AVAILABLE);
+        }
+
+        DB.markWrite(userId);
+
+        HoldExpiryReaper.get().schedule(eventId, seatId, expiresAt);
+
+        if (SeatInventoryCache.ENABLED)
+            SeatInventoryCache.get().apply(new SeatChange(eventId, seatId, "HELD", seatVersion), userId, expiresAt);
+
+        securityLogDAO.log("INFO", "BOOK_OK", userId, user.getEmail(),
+                "Booked seatId=" + seatId);
+
+        return new BookingAttempt(bookingId, null);
+    }
+
+
+
+    private static <T> T await(CompletableFuture<T> future) throws SQLException {
+        try {
+            return future.get(HOLD_AWAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            // the engine drops the request, or cancels the booking if it was already written
+            future.cancel(false);
+            throw new SQLException("Timed out waiting for the seat hold.", ex);
+        } catch (InterruptedException ex) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the seat hold.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof SQLException sql) throw sql;
+            throw new SQLException(ex.getCause());
+        }
+    }
+
+
+
+    private record SeatsHeld(long bookingId, List<SeatChange> changes) {}
+
+    public long bookSeats(User user,
+                          long eventId,
+                          List<Long> seatIds) throws SQLException {
+
+        if (user == null)
+            throw new SQLException("User required");
+
+        if (AdmissionController.ENABLED)
+            AdmissionController.get().requireAdmitted(eventId, user.getUserId());
+
+        if (seatIds == null || seatIds.isEmpty())
+            throw new SQLException("No seats selected");
+
+        // ascending seat_id is the lock order for every multi-seat booking, so two of them cannot deadlock
+        Long[] seats = seatIds.stream().distinct().sorted().toArray(Long[]::new);
+        long userId = user.getUserId();
+
+        String abuseSql = """
+            SELECT l.seat_id
+            FROM seat_abuse_ledger l
+            CROSS JOIN LATERAL unnest(l.expired_at) AS e(at)
+            WHERE l.user_id = ?
+              AND l.seat_id = ANY(?)
+              AND e.at >= now() - INTERVAL '525600 minutes'
+            GROUP BY l.seat_id
+            HAVING COUNT(*) >= ?
+        """;
+
+        String holdSeatsSql = """
+            WITH locked AS (
+                SELECT event_id, seat_id
+                FROM event_seats
+                WHERE event_id = ?
+                  AND seat_id = ANY(?)
+                  AND state = 'AVAILABLE'
+                ORDER BY seat_id
+                FOR UPDATE
+            )
+            UPDATE event_seats es
+            SET state='HELD',
+                held_by_user_id=?,
+                hold_expires_at=?
+            FROM locked l
+            WHERE es.event_id = l.event_id
+              AND es.seat_id = l.seat_id
+            RETURNING es.seat_id, es.price, es.version
+        """;
+
+        String insertBookingSql =
+                "INSERT INTO bookings (user_id, event_id, status) " +
+                        "VALUES (?, ?, 'PENDING') RETURNING booking_id";
+
+        String insertItemSql =
+                "INSERT INTO booking_items (booking_id, seat_id, price, event_id) " +
+                        "VALUES (?, ?, ?, ?)";
+
+        Timestamp expiresAt = HoldLeaseManager.get().newLease();
 
-            con.setAutoCommit(false);
+        SeatsHeld held;
 
-            try {
+        try {
+            held = BOOK_SEATS_TX.execute(con -> {
 
-                Timestamp expiresAt =
-                        Timestamp.valueOf(LocalDateTime.now().plusMinutes(2));
+                try (PreparedStatement ps = con.prepareStatement(abuseSql)) {
+                    ps.setLong(1, userId);
+                    ps.setArray(2, con.createArrayOf("bigint", seats));
+                    ps.setInt(3, SEAT_ABUSE_LIMIT);
 
-                try (PreparedStatement ps = con.prepareStatement(holdSeatSql)) {
-                    ps.setLong(1, user.getUserId());
-                    ps.setTimestamp(2, expiresAt);
-                    ps.setLong(3, eventId);
-                    ps.setLong(4, seatId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next())
+                            throw new SeatsBlockedException(rs.getLong("seat_id"));
+                    }
+                }
 
-                    if (ps.executeUpdate() == 0) {
+                List<SeatChange> changes = new ArrayList<>();
+                List<BigDecimal> prices = new ArrayList<>();
 
-                        securityLogDAO.log(
-                                "INFO",
-                                "BOOK_FAIL",
-                                user.getUserId(),
-                                user.getEmail(),
-                                "Seat not available seatId=" + seatId
-                        );
+                try (PreparedStatement ps = con.prepareStatement(holdSeatsSql)) {
+                    ps.setLong(1, eventId);
+                    ps.setArray(2, con.createArrayOf("bigint", seats));
+                    ps.setLong(3, userId);
+                    ps.setTimestamp(4, expiresAt);
 
-                        con.rollback();
-                        throw new SQLException("Seat not available.");
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            changes.add(new SeatChange(eventId, rs.getLong("seat_id"), "HELD", rs.getLong("version")));
+                            prices.add(rs.getBigDecimal("price"));
+                        }
                     }
                 }
 
-                long bookingId;
+                if (changes.size() < seats.length)
+                    throw new SeatsTakenException();
 
-                try (PreparedStatement ps =
-                             con.prepareStatement(insertBookingSql)) {
+                long id;
 
-                    ps.setLong(1, user.getUserId());
+                try (PreparedStatement ps = con.prepareStatement(insertBookingSql)) {
+                    ps.setLong(1, userId);
                     ps.setLong(2, eventId);
 
                     try (ResultSet rs = ps.executeQuery()) {
                         rs.next();
-                        bookingId = rs.getLong(1);
+                        id = rs.getLong(1);
                     }
                 }
 
-                try (PreparedStatement ps =
-                             con.prepareStatement(insertItemSql)) {
-
-                    ps.setLong(1, bookingId);
-                    ps.setLong(2, seatId);
-                    ps.setBigDecimal(3, price);
-                    ps.setLong(4, eventId);
-                    ps.executeUpdate();
+                try (PreparedStatement ps = con.prepareStatement(insertItemSql)) {
+                    for (int i = 0; i < changes.size(); i++) {
+                        ps.setLong(1, id);
+                        ps.setLong(2, changes.get(i).seatId());
+                        ps.setBigDecimal(3, prices.get(i));
+                        ps.setLong(4, eventId);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
                 }
 
-                con.commit();
+                return new SeatsHeld(id, changes);
+            });
+
+        } catch (SeatsBlockedException ex) {
+            securityLogDAO.log("WARN", "BOOK_BLOCKED", userId, user.getEmail(),
+                    "Seat permanently blocked " + ex.getMessage());
+            throw new SQLException("Seat permanently blocked due to abuse.");
+
+        } catch (SeatsTakenException ex) {
+            securityLogDAO.log("INFO", "BOOK_FAIL", userId, user.getEmail(),
+                    "Seats not available seatIds=" + Arrays.toString(seats));
+            throw new SQLException("Seat not available.");
+        }
 
-                securityLogDAO.log(
-                        "INFO",
-                        "BOOK_OK",
-                        user.getUserId(),
-                        user.getEmail(),
-                        "Booked seatId=" + seatId
-                );
+        DB.markWrite(userId);
 
-                return bookingId;
+        for (SeatChange c : held.changes()) {
+            HoldExpiryReaper.get().schedule(eventId, c.seatId(), expiresAt);
+            if (SeatHoldEngine.ENABLED)
+                SeatHoldEngine.get().apply(c);
+            if (SeatInventoryCache.ENABLED)
+                SeatInventoryCache.get().apply(c, userId, expiresAt);
+        }
 
-            } catch (Exception ex) {
-                con.rollback();
-                throw new SQLException(ex.getMessage(), ex);
-            } finally {
-                con.setAutoCommit(true);
-            }
+        securityLogDAO.log("INFO", "BOOK_OK", userId, user.getEmail(),
+                "Booked seatIds=" + Arrays.toString(seats));
+
+        return held.bookingId();
+    }
+
+    private static final class SeatsBlockedException extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        SeatsBlockedException(long seatId) {
+            super("seatId=" + seatId);
+        }
+    }
+
+    // only this counts as BOOK_FAIL; timeouts and connection errors are not the user's doing
+    private static final class SeatsTakenException extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        SeatsTakenException() {
+            super("Seat not available.");
         }
     }
 
@@ -175,18 +518,21 @@ public class BookingDAO {
     public void payBooking(long userId,
                            long bookingId) throws SQLException {
 
+        // event_id is bound as a parameter so only the event's partition of event_seats is touched
         String seatUpdateSql = """
             UPDATE event_seats
             SET state='BOOKED',
                 held_by_user_id=NULL,
                 hold_expires_at=NULL
-            WHERE (event_id, seat_id) IN (
-                SELECT event_id, seat_id
+            WHERE event_id=?
+              AND seat_id IN (
+                SELECT seat_id
                 FROM booking_items
                 WHERE booking_id=?
             )
             AND state='HELD'
             AND held_by_user_id=?
+            RETURNING event_id, seat_id, version
         """;
 
         String bookingUpdateSql =
@@ -194,45 +540,44 @@ public class BookingDAO {
                         "SET status='PAID', paid_at=CURRENT_TIMESTAMP " +
                         "WHERE booking_id=? AND user_id=? AND status='PENDING'";
 
-        try (Connection con = DB.getConnection()) {
+        List<SeatChange> changes = PAY_TX.execute(con -> {
 
-            con.setAutoCommit(false);
+            long eventId = lockBookingEvent(con, bookingId, userId);
+            if (eventId == 0)
+                throw new SQLException("Payment failed.");
 
-            try {
+            List<SeatChange> booked;
 
-                try (PreparedStatement ps =
-                             con.prepareStatement(seatUpdateSql)) {
+            try (PreparedStatement ps =
+                         con.prepareStatement(seatUpdateSql)) {
 
-                    ps.setLong(1, bookingId);
-                    ps.setLong(2, userId);
+                ps.setLong(1, eventId);
+                ps.setLong(2, bookingId);
+                ps.setLong(3, userId);
 
-                    if (ps.executeUpdate() == 0) {
-                        con.rollback();
-                        throw new SQLException("Seat hold expired.");
-                    }
+                try (ResultSet rs = ps.executeQuery()) {
+                    booked = seatChanges(rs, "BOOKED");
                 }
 
-                try (PreparedStatement ps =
-                             con.prepareStatement(bookingUpdateSql)) {
-
-                    ps.setLong(1, bookingId);
-                    ps.setLong(2, userId);
+                if (booked.isEmpty())
+                    throw new SQLException("Seat hold expired.");
+            }
 
-                    if (ps.executeUpdate() == 0) {
-                        con.rollback();
-                        throw new SQLException("Payment failed.");
-                    }
-                }
+            try (PreparedStatement ps =
+                         con.prepareStatement(bookingUpdateSql)) {
 
-                con.commit();
+                ps.setLong(1, bookingId);
+                ps.setLong(2, userId);
 
-            } catch (Exception ex) {
-                con.rollback();
-                throw new SQLException(ex.getMessage(), ex);
-            } finally {
-                con.setAutoCommit(true);
+                if (ps.executeUpdate() == 0)
+                    throw new SQLException("Payment failed.");
             }
-        }
+
+            return booked;
+        });
+
+        DB.markWrite(userId);
+        applyToCache(changes);
     }
 
 
@@ -244,51 +589,93 @@ public class BookingDAO {
             SET state='AVAILABLE',
                 held_by_user_id=NULL,
                 hold_expires_at=NULL
-            WHERE (event_id, seat_id) IN (
-                SELECT event_id, seat_id
+            WHERE event_id=?
+              AND seat_id IN (
+                SELECT seat_id
                 FROM booking_items
                 WHERE booking_id=?
             )
             AND state='HELD'
+            RETURNING event_id, seat_id, version
         """;
 
         String cancelSql =
                 "UPDATE bookings SET status='CANCELLED' " +
                         "WHERE booking_id=? AND user_id=?";
 
-        try (Connection con = DB.getConnection()) {
+        List<SeatChange> changes = CANCEL_TX.execute(con -> {
+
+            long eventId = lockBookingEvent(con, bookingId, userId);
+            if (eventId == 0)
+                throw new SQLException("Cancel failed.");
 
-            con.setAutoCommit(false);
+            List<SeatChange> released;
 
-            try {
+            try (PreparedStatement ps =
+                         con.prepareStatement(seatReleaseSql)) {
+                ps.setLong(1, eventId);
+                ps.setLong(2, bookingId);
 
-                try (PreparedStatement ps =
-                             con.prepareStatement(seatReleaseSql)) {
-                    ps.setLong(1, bookingId);
-                    ps.executeUpdate();
+                try (ResultSet rs = ps.executeQuery()) {
+                    released = seatChanges(rs, "AVAILABLE");
                 }
+            }
 
-                try (PreparedStatement ps =
-                             con.prepareStatement(cancelSql)) {
+            try (PreparedStatement ps =
+                         con.prepareStatement(cancelSql)) {
 
-                    ps.setLong(1, bookingId);
-                    ps.setLong(2, userId);
+                ps.setLong(1, bookingId);
+                ps.setLong(2, userId);
+
+                if (ps.executeUpdate() == 0)
+                    throw new SQLException("Cancel failed.");
+            }
+
+            return released;
+        });
+
+        DB.markWrite(userId);
+        applyToCache(changes);
+    }
 
-                    if (ps.executeUpdate() == 0)
-                        throw new SQLException("Cancel failed.");
-                }
 
-                con.commit();
+    // event of the user's booking, or 0; the row lock keeps a concurrent pay and cancel apart
+    private static long lockBookingEvent(Connection con, long bookingId, long userId) throws SQLException {
+        String sql = "SELECT event_id FROM bookings WHERE booking_id=? AND user_id=? FOR UPDATE";
 
-            } catch (Exception ex) {
-                con.rollback();
-                throw new SQLException(ex.getMessage(), ex);
-            } finally {
-                con.setAutoCommit(true);
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setLong(1, bookingId);
+            ps.setLong(2, userId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
             }
         }
     }
 
+    private static List<SeatChange> seatChanges(ResultSet rs, String state) throws SQLException {
+        List<SeatChange> out = new ArrayList<>();
+        while (rs.next()) {
+            out.add(new SeatChange(
+                    rs.getLong("event_id"),
+                    rs.getLong("seat_id"),
+                    state,
+                    rs.getLong("version")
+            ));
+        }
+        return out;
+    }
+
+    private static void applyToCache(List<SeatChange> changes) {
+        if (SeatHoldEngine.ENABLED)
+            for (SeatChange c : changes) SeatHoldEngine.get().apply(c);
+
+        if (!SeatInventoryCache.ENABLED) return;
+
+        for (SeatChange c : changes)
+            SeatInventoryCache.get().apply(c, 0, null);
+    }
+
     public List<BookingHistoryItem> getBookingHistory(long userId)
             throws SQLException {
 
@@ -320,7 +707,7 @@ public class BookingDAO {
 
         List<BookingHistoryItem> out = new ArrayList<>();
 
-        try (Connection con = DB.getConnection();
+        try (Connection con = DB.getReadConnection(userId);
              PreparedStatement ps = con.prepareStatement(sql)) {
 
             ps.setLong(1, userId);
@@ -0,0 +1,110 @@
+package com.selenium.dao;
+
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public final class DaoExecutor {
+
+    @FunctionalInterface
+    public interface SqlCall<T> {
+        T call() throws SQLException;
+    }
+
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final String name;
+    private final int maxConcurrency;
+    private final long defaultTimeoutMs;
+    private final Semaphore permits;
+
+    public DaoExecutor(String name, int maxConcurrency, long defaultTimeoutMs) {
+        this.name = name;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.permits = new Semaphore(this.maxConcurrency, true);
+    }
+
+    public static DaoExecutor fromSystemProperties(String name) {
+        return new DaoExecutor(
+                name,
+                Integer.getInteger("dao.async." + name + ".maxConcurrency", 8),
+                Long.getLong("dao.async." + name + ".timeoutMs", 10_000)
+        );
+    }
+
+    public String getName() { return name; }
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public int getInFlight() { return maxConcurrency - permits.availablePermits(); }
+    public int getQueued() { return permits.getQueueLength(); }
+
+
+    public <T> CompletableFuture<T> submit(SqlCall<T> call) {
+        return submit(call, defaultTimeoutMs);
+    }
+
+    public <T> CompletableFuture<T> submit(SqlCall<T> call, long timeoutMs) {
+        return submit(call, timeoutMs, true);
+    }
+
+    // Writes run to completion: a timeout or interrupt could report a failure for a transaction that
+    // still commits, so they get no deadline and cancel() does not interrupt the worker.
+    public <T> CompletableFuture<T> submitWrite(SqlCall<T> call) {
+        return submit(call, 0, false);
+    }
+
+    private <T> CompletableFuture<T> submit(SqlCall<T> call, long timeoutMs, boolean interruptible) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        Future<?> task = VIRTUAL_THREADS.submit(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException ex) {
+                result.completeExceptionally(new CancellationException(name + " call cancelled while queued"));
+                return;
+            }
+
+            try {
+                if (!result.isDone()) result.complete(call.call());
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            } finally {
+                permits.release();
+            }
+        });
+
+        // cancel() and orTimeout() only complete the future, so interrupt the worker as well
+        if (interruptible) result.whenComplete((v, ex) -> {
+            if (ex instanceof CancellationException || ex instanceof TimeoutException)
+                task.cancel(true);
+        });
+
+        if (timeoutMs > 0)
+            result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+
+        return result;
+    }
+
+
+    public static Throwable unwrap(Throwable ex) {
+        Throwable t = ex;
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null)
+            t = t.getCause();
+        return t;
+    }
+
+    public static String message(Throwable ex) {
+        Throwable t = unwrap(ex);
+        if (t instanceof TimeoutException) return "Request timed out.";
+        if (t instanceof CancellationException) return "Request cancelled.";
+        return t.getMessage();
+    }
+}
@@ -1,6 +1,8 @@
 package com.selenium.dao;
 
 import com.selenium.db.DB;
+import com.selenium.db.TransactionTemplate;
+import com.selenium.inventory.SeatInventoryCache;
 import com.selenium.model.Event;
 
 import java.sql.*;
@@ -11,6 +13,9 @@ public class EventDAO {
 
     private final SecurityLogDAO logDao = new SecurityLogDAO();
 
+    private static final TransactionTemplate DELETE_TX = new TransactionTemplate(
+            "EventDAO.softDeleteEvent", Connection.TRANSACTION_READ_COMMITTED, 30_000);
+
 
     public List<Event> getActiveEvents() throws SQLException {
         List<Event> events = new ArrayList<>();
@@ -29,7 +34,7 @@ public class EventDAO {
                 ORDER BY e.start_time
                 """;
 
-        try (Connection c = DB.getConnection();
+        try (Connection c = DB.getReadConnectionAfterAnyWrite();
              PreparedStatement ps = c.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
@@ -96,7 +101,7 @@ public class EventDAO {
                 LIMIT ?
                 """;
 
-        try (Connection c = DB.getConnection();
+        try (Connection c = DB.getReadConnection(userId);
              PreparedStatement ps = c.prepareStatement(sql)) {
 
             ps.setLong(1, userId);
@@ -136,7 +141,7 @@ public class EventDAO {
                 ORDER BY e.start_time
                 """;
 
-        try (Connection c = DB.getConnection();
+        try (Connection c = DB.getReadConnectionAfterAnyWrite();
              PreparedStatement ps = c.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
@@ -172,10 +177,13 @@ public class EventDAO {
             ps.setString(4, category);
             ps.setTimestamp(5, startTime);
 
+            long eventId;
             try (ResultSet rs = ps.executeQuery()) {
                 rs.next();
-                return rs.getLong(1);
+                eventId = rs.getLong(1);
             }
+            DB.markWrite();
+            return eventId;
         }
     }
 
@@ -195,14 +203,12 @@ public class EventDAO {
                   AND state <> 'BLOCKED'
                 """;
 
-        try (Connection con = DB.getConnection()) {
-            con.setAutoCommit(false);
-
-            try {
-                int updated;
+        try {
+            int updated = DELETE_TX.execute(con -> {
+                int n;
                 try (PreparedStatement ps = con.prepareStatement(updEvent)) {
                     ps.setLong(1, eventId);
-                    updated = ps.executeUpdate();
+                    n = ps.executeUpdate();
                 }
 
                 try (PreparedStatement ps = con.prepareStatement(blockSeats)) {
@@ -210,25 +216,27 @@ public class EventDAO {
                     ps.executeUpdate();
                 }
 
-                con.commit();
+                return n;
+            });
 
-                if (updated == 0) {
-                    logDao.log("WARN", "ADMIN_DELETE_EVENT", adminUserId, null,
-                            "eventId=" + eventId + " note=ALREADY_DELETED_OR_NOT_FOUND");
-                } else {
-                    logDao.log("INFO", "ADMIN_DELETE_EVENT", adminUserId, null,
-                            "eventId=" + eventId + " result=SOFT_DELETED");
-                }
+            DB.markWrite(adminUserId);
 
-            } catch (Exception ex) {
-                con.rollback();
-                logDao.log("ERROR", "ADMIN_DELETE_EVENT_ERROR", adminUserId, null,
-                        "eventId=" + eventId + " ex=" + ex.getClass().getSimpleName() + " msg=" + ex.getMessage());
-                if (ex instanceof SQLException se) throw se;
-                throw new SQLException(ex.getMessage(), ex);
-            } finally {
-                con.setAutoCommit(true);
+            if (SeatInventoryCache.ENABLED)
+                SeatInventoryCache.get().invalidateState(eventId);
+
+            if (updated == 0) {
+                logDao.log("WARN", "ADMIN_DELETE_EVENT", adminUserId, null,
+                        "eventId=" + eventId + " note=ALREADY_DELETED_OR_NOT_FOUND");
+            } else {
+                logDao.log("INFO", "ADMIN_DELETE_EVENT", adminUserId, null,
+                        "eventId=" + eventId + " result=SOFT_DELETED");
             }
+
+        } catch (SQLException ex) {
+            Throwable cause = ex.getCause() instanceof RuntimeException ? ex.getCause() : ex;
+            logDao.log("ERROR", "ADMIN_DELETE_EVENT_ERROR", adminUserId, null,
+                    "eventId=" + eventId + " ex=" + cause.getClass().getSimpleName() + " msg=" + ex.getMessage());
+            throw ex;
         }
     }
 }
@@ -0,0 +1,59 @@
+package com.selenium.dao;
+
+import com.selenium.db.DB;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+// Per (user, seat) history of expired holds; replaces counting BOOK_EXPIRED_SEAT_<seat> rows in security_logs.
+// Only the newest MAX_KEPT expiries are kept, enough for any abuse limit below that.
+public class SeatAbuseLedgerDAO {
+
+    public static final int MAX_KEPT = 16;
+
+    private static final String COUNT_SQL = """
+            SELECT COUNT(*)
+            FROM seat_abuse_ledger l
+            CROSS JOIN LATERAL unnest(l.expired_at) AS e(at)
+            WHERE l.user_id = ?
+              AND l.seat_id = ?
+              AND e.at >= now() - INTERVAL '525600 minutes'
+            """;
+
+    private static final String RECORD_SQL = """
+            INSERT INTO seat_abuse_ledger (user_id, seat_id, expired_at)
+            SELECT user_id, seat_id, ARRAY[CURRENT_TIMESTAMP::timestamp]
+            FROM unnest(?::bigint[], ?::bigint[]) AS r(user_id, seat_id)
+            ON CONFLICT (user_id, seat_id) DO UPDATE
+            SET expired_at = (ARRAY[CURRENT_TIMESTAMP::timestamp] || seat_abuse_ledger.expired_at)[1:%d]
+            """.formatted(MAX_KEPT);
+
+
+    // expired holds of the user on the seat within the last year
+    public int countRecentExpiries(long userId, long seatId) throws SQLException {
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(COUNT_SQL)) {
+
+            ps.setLong(1, userId);
+            ps.setLong(2, seatId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    // joins the caller's transaction; userIds.get(i) let seatIds.get(i) expire, each pair at most once
+    public void recordExpiries(Connection con, List<Long> userIds, List<Long> seatIds) throws SQLException {
+        if (userIds.isEmpty()) return;
+
+        try (PreparedStatement ps = con.prepareStatement(RECORD_SQL)) {
+            ps.setArray(1, con.createArrayOf("bigint", userIds.toArray(new Long[0])));
+            ps.setArray(2, con.createArrayOf("bigint", seatIds.toArray(new Long[0])));
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.selenium.dao;
+
+import com.selenium.db.DB;
+import com.selenium.db.TransactionTemplate;
+import com.selenium.inventory.SeatHoldEngine;
+import com.selenium.inventory.SeatInventoryCache;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SeatBulkLoader {
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(String stage, long rowsDone, long rowsTotal);
+    }
+
+    private static final int CHUNK_ROWS = Integer.getInteger("seat.bulk.chunkRows", 5_000);
+    private static final int PARALLELISM = Integer.getInteger("seat.bulk.parallelism", 4);
+
+    private static final TransactionTemplate SEATS_TX = new TransactionTemplate(
+            "SeatBulkLoader.copySeats", Connection.TRANSACTION_READ_COMMITTED, 0);
+    private static final TransactionTemplate EVENT_SEATS_TX = new TransactionTemplate(
+            "SeatBulkLoader.copyEventSeats", Connection.TRANSACTION_READ_COMMITTED, 0);
+
+
+    public int generateSeatsForVenue(long venueId,
+                                     List<String> sections,
+                                     List<String> rows,
+                                     int seatsPerRow,
+                                     ProgressListener listener) throws SQLException {
+
+        String createStage = """
+            CREATE TEMP TABLE seats_stage (
+                venue_id bigint,
+                section varchar(40),
+                row_label varchar(10),
+                seat_no int
+            ) ON COMMIT DROP
+        """;
+
+        String mergeStage = """
+            INSERT INTO seats (venue_id, section, row_label, seat_no)
+            SELECT venue_id, section, row_label, seat_no
+            FROM seats_stage
+            ON CONFLICT ON CONSTRAINT uq_seat DO NOTHING
+        """;
+
+        Progress progress = new Progress(listener, (long) sections.size() * rows.size() * seatsPerRow);
+
+        List<SectionTask<Integer>> tasks = new ArrayList<>();
+
+        for (String section : sections) {
+            Progress.Stream stream = progress.stream("seats:" + section);
+
+            tasks.add(() -> SEATS_TX.execute(con -> {
+
+                stream.restart();
+                stage(con, createStage);
+
+                CopyIn copy = copyApi(con).copyIn(
+                        "COPY seats_stage (venue_id, section, row_label, seat_no) FROM STDIN");
+
+                try {
+                    StringBuilder chunk = new StringBuilder();
+                    int rowsInChunk = 0;
+
+                    for (String row : rows) {
+                        for (int i = 1; i <= seatsPerRow; i++) {
+                            chunk.append(venueId).append('\t')
+                                    .append(escape(section)).append('\t')
+                                    .append(escape(row)).append('\t')
+                                    .append(i).append('\n');
+
+                            if (++rowsInChunk == CHUNK_ROWS) {
+                                flush(copy, chunk);
+                                stream.add(rowsInChunk);
+                                rowsInChunk = 0;
+                            }
+                        }
+                    }
+
+                    flush(copy, chunk);
+                    stream.add(rowsInChunk);
+                    copy.endCopy();
+
+                } finally {
+                    if (copy.isActive()) copy.cancelCopy();
+                }
+
+                return merge(con, mergeStage);
+            }));
+        }
+
+        return runParallel(tasks);
+    }
+
+
+    public int attachVenueSeatsToEvents(List<Long> eventIds,
+                                        long venueId,
+                                        BigDecimal price,
+                                        ProgressListener listener) throws SQLException {
+
+        String loadSeatsSql = """
+            SELECT seat_id, section
+            FROM seats
+            WHERE venue_id = ?
+            ORDER BY section, seat_id
+        """;
+
+        String createStage = """
+            CREATE TEMP TABLE event_seats_stage (
+                event_id bigint,
+                seat_id bigint,
+                price numeric(10,2)
+            ) ON COMMIT DROP
+        """;
+
+        String mergeStage = """
+            INSERT INTO event_seats (event_id, seat_id, price, state)
+            SELECT event_id, seat_id, price, 'AVAILABLE'
+            FROM event_seats_stage
+            ON CONFLICT (event_id, seat_id) DO NOTHING
+        """;
+
+        Map<String, List<Long>> seatsBySection = new LinkedHashMap<>();
+
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(loadSeatsSql)) {
+
+            ps.setLong(1, venueId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    seatsBySection
+                            .computeIfAbsent(rs.getString("section"), k -> new ArrayList<>())
+                            .add(rs.getLong("seat_id"));
+                }
+            }
+        }
+
+        long seatCount = seatsBySection.values().stream().mapToLong(List::size).sum();
+        Progress progress = new Progress(listener, seatCount * eventIds.size());
+        String priceText = price.toPlainString();
+
+        List<SectionTask<Integer>> tasks = new ArrayList<>();
+
+        for (Map.Entry<String, List<Long>> e : seatsBySection.entrySet()) {
+            String section = e.getKey();
+            List<Long> seatIds = e.getValue();
+            Progress.Stream stream = progress.stream("event_seats:" + section);
+
+            tasks.add(() -> EVENT_SEATS_TX.execute(con -> {
+
+                stream.restart();
+                stage(con, createStage);
+
+                CopyIn copy = copyApi(con).copyIn(
+                        "COPY event_seats_stage (event_id, seat_id, price) FROM STDIN");
+
+                try {
+                    StringBuilder chunk = new StringBuilder();
+                    int rowsInChunk = 0;
+
+                    for (long eventId : eventIds) {
+                        for (long seatId : seatIds) {
+                            chunk.append(eventId).append('\t')
+                                    .append(seatId).append('\t')
+                                    .append(priceText).append('\n');
+
+                            if (++rowsInChunk == CHUNK_ROWS) {
+                                flush(copy, chunk);
+                                stream.add(rowsInChunk);
+                                rowsInChunk = 0;
+                            }
+                        }
+                    }
+
+                    flush(copy, chunk);
+                    stream.add(rowsInChunk);
+                    copy.endCopy();
+
+                } finally {
+                    if (copy.isActive()) copy.cancelCopy();
+                }
+
+                return merge(con, mergeStage);
+            }));
+        }
+
+        int attached = runParallel(tasks);
+
+        if (SeatInventoryCache.ENABLED)
+            for (long eventId : eventIds) SeatInventoryCache.get().evict(eventId);
+
+        if (SeatHoldEngine.ENABLED)
+            for (long eventId : eventIds) SeatHoldEngine.get().evict(eventId);
+
+        return attached;
+    }
+
+
+    @FunctionalInterface
+    private interface SectionTask<T> {
+        T call() throws SQLException;
+    }
+
+    private static int runParallel(List<SectionTask<Integer>> tasks) throws SQLException {
+        if (tasks.isEmpty()) return 0;
+
+        if (tasks.size() == 1)
+            return tasks.get(0).call();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(PARALLELISM, tasks.size())));
+
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (SectionTask<Integer> t : tasks)
+                futures.add(pool.submit(t::call));
+
+            int inserted = 0;
+            for (Future<Integer> f : futures)
+                inserted += f.get();
+
+            return inserted;
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Bulk load interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SQLException se) throw se;
+            throw new SQLException(cause.getMessage(), cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static CopyManager copyApi(Connection con) throws SQLException {
+        return con.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    private static void stage(Connection con, String sql) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    private static int merge(Connection con, String sql) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            return st.executeUpdate(sql);
+        }
+    }
+
+    private static void flush(CopyIn copy, StringBuilder chunk) throws SQLException {
+        if (chunk.length() == 0) return;
+
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    // rows streamed across all sections; a section retried after a deadlock takes back what it had sent
+    private static final class Progress {
+        private final ProgressListener listener;
+        private final long total;
+        private final AtomicLong done = new AtomicLong();
+
+        Progress(ProgressListener listener, long total) {
+            this.listener = listener;
+            this.total = total;
+        }
+
+        Stream stream(String stage) {
+            return new Stream(stage);
+        }
+
+        final class Stream {
+            private final String stage;
+            private long sent;
+
+            Stream(String stage) {
+                this.stage = stage;
+            }
+
+            void restart() {
+                if (sent > 0) done.addAndGet(-sent);
+                sent = 0;
+            }
+
+            void add(long rows) {
+                sent += rows;
+                long now = done.addAndGet(rows);
+                if (listener != null) listener.onProgress(stage, now, total);
+            }
+        }
+    }
+
+    private static String escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,7 +1,12 @@
 package com.selenium.dao;
 
 import com.selenium.db.DB;
+import com.selenium.inventory.SeatHoldEngine;
+import com.selenium.inventory.SeatInventoryCache;
+import com.selenium.inventory.SeatRowIndex;
+import com.selenium.model.SeatDelta;
 import com.selenium.model.SeatInfo;
+import com.selenium.model.SeatMap;
 
 import java.math.BigDecimal;
 import java.sql.*;
@@ -10,87 +15,71 @@ import java.util.List;
 
 public class SeatDAO {
 
-    private final SecurityLogDAO securityLogDAO = new SecurityLogDAO();
+    private static final int BULK_THRESHOLD = Integer.getInteger("seat.bulk.threshold", 2_000);
 
 
     public List<SeatInfo> getSeatsForEvent(long eventId) throws SQLException {
 
-        String selectExpiredSql = """
-            SELECT seat_id, held_by_user_id
-            FROM event_seats
-            WHERE state='HELD'
-              AND hold_expires_at < CURRENT_TIMESTAMP
-        """;
+        if (SeatInventoryCache.ENABLED)
+            return SeatInventoryCache.get().getSeats(eventId);
 
-        String releaseExpiredSeatsSql = """
-            UPDATE event_seats
-            SET state='AVAILABLE',
-                held_by_user_id=NULL,
-                hold_expires_at=NULL
-            WHERE state='HELD'
-              AND hold_expires_at < CURRENT_TIMESTAMP
-        """;
+        return loadSeatMap(eventId).toSeatInfos();
+    }
 
-        String loadSeatsSql = """
-            SELECT 
-                s.seat_id,
-                (s.section || '-' || s.row_label || s.seat_no) AS seat_label,
-                es.price,
-                es.state
-            FROM event_seats es
-            JOIN seats s ON s.seat_id = es.seat_id
-            WHERE es.event_id = ?
-            ORDER BY s.section, s.row_label, s.seat_no
-        """;
 
-        List<SeatInfo> out = new ArrayList<>();
+    // without the cache there is no change log, every call is a full snapshot
+    public SeatDelta getSeatChangesSince(long eventId, long version) throws SQLException {
 
-        try (Connection con = DB.getConnection()) {
+        if (SeatInventoryCache.ENABLED)
+            return SeatInventoryCache.get().getSeatChangesSince(eventId, version);
 
+        return new SeatDelta(0, true, loadSeatMap(eventId).toSeatInfos());
+    }
 
-            try (PreparedStatement ps = con.prepareStatement(selectExpiredSql);
-                 ResultSet rs = ps.executeQuery()) {
 
-                while (rs.next()) {
+    public SeatMap getSeatMapForEvent(long eventId) throws SQLException {
 
-                    long seatId = rs.getLong("seat_id");
-                    Object uo = rs.getObject("held_by_user_id");
+        if (SeatInventoryCache.ENABLED)
+            return SeatInventoryCache.get().getSeatMap(eventId);
 
-                    if (uo != null) {
+        return loadSeatMap(eventId);
+    }
 
-                        Long userId = ((Number) uo).longValue();
 
-                        securityLogDAO.log(
-                                "INFO",
-                                "BOOK_EXPIRED_SEAT_" + seatId,
-                                userId,
-                                null,
-                                "Seat expired seatId=" + seatId
-                        );
-                    }
-                }
-            }
+    public List<SeatInfo> findBestAvailable(long eventId,
+                                            int count,
+                                            String preferredSection,
+                                            BigDecimal maxPrice) throws SQLException {
 
+        if (SeatInventoryCache.ENABLED)
+            return SeatInventoryCache.get().findBestAvailable(eventId, count, preferredSection, maxPrice);
 
-            try (PreparedStatement ps = con.prepareStatement(releaseExpiredSeatsSql)) {
-                ps.executeUpdate();
-            }
+        return SeatRowIndex.findBestAvailable(loadSeatMap(eventId), count, preferredSection, maxPrice);
+    }
 
 
-            try (PreparedStatement ps = con.prepareStatement(loadSeatsSql)) {
+    public List<String> getSectionsForEvent(long eventId) throws SQLException {
 
-                ps.setLong(1, eventId);
+        if (SeatInventoryCache.ENABLED)
+            return SeatInventoryCache.get().sections(eventId);
 
-                try (ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        out.add(new SeatInfo(
-                                rs.getLong("seat_id"),
-                                rs.getString("seat_label"),
-                                rs.getBigDecimal("price"),
-                                rs.getString("state")
-                        ));
-                    }
-                }
+        String sql = """
+            SELECT DISTINCT s.section
+            FROM event_seats es
+            JOIN seats s ON s.seat_id = es.seat_id
+            WHERE es.event_id = ?
+            ORDER BY s.section
+        """;
+
+        List<String> out = new ArrayList<>();
+
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            ps.setLong(1, eventId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(rs.getString(1));
             }
         }
 
@@ -98,46 +87,100 @@ public class SeatDAO {
     }
 
 
+    private SeatMap loadSeatMap(long eventId) throws SQLException {
+
+        String loadSeatsSql = """
+            SELECT 
+                s.seat_id,
+                s.section,
+                s.row_label,
+                s.seat_no,
+                (es.price * 100)::int AS price_cents,
+                es.state
+            FROM event_seats es
+            JOIN seats s ON s.seat_id = es.seat_id
+            WHERE es.event_id = ?
+            ORDER BY s.section, s.row_label, s.seat_no
+        """;
+
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(loadSeatsSql)) {
+
+            ps.setLong(1, eventId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return SeatMap.fromResultSet(rs);
+            }
+        }
+    }
+
+
     public int generateSeatsForVenue(long venueId,
                                      String section,
                                      List<String> rows,
                                      int seatsPerRow) throws SQLException {
+        return generateSeatsForVenue(venueId, List.of(section), rows, seatsPerRow, null);
+    }
+
+    public int generateSeatsForVenue(long venueId,
+                                     List<String> sections,
+                                     List<String> rows,
+                                     int seatsPerRow,
+                                     SeatBulkLoader.ProgressListener listener) throws SQLException {
+
+        if ((long) sections.size() * rows.size() * seatsPerRow >= BULK_THRESHOLD)
+            return new SeatBulkLoader().generateSeatsForVenue(venueId, sections, rows, seatsPerRow, listener);
 
+        // one statement, so the count is the rows actually inserted, not the batch size
         String sql = """
             INSERT INTO seats (venue_id, section, row_label, seat_no)
-            VALUES (?, ?, ?, ?)
+            SELECT ?, r.section, r.row_label, r.seat_no
+            FROM unnest(?::varchar[], ?::varchar[], ?::int[]) AS r(section, row_label, seat_no)
             ON CONFLICT ON CONSTRAINT uq_seat DO NOTHING
         """;
 
-        int inserted = 0;
-
-        try (Connection con = DB.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        List<String> seatSections = new ArrayList<>();
+        List<String> seatRows = new ArrayList<>();
+        List<Integer> seatNos = new ArrayList<>();
 
+        for (String section : sections) {
             for (String row : rows) {
                 for (int i = 1; i <= seatsPerRow; i++) {
-                    ps.setLong(1, venueId);
-                    ps.setString(2, section);
-                    ps.setString(3, row);
-                    ps.setInt(4, i);
-                    ps.addBatch();
+                    seatSections.add(section);
+                    seatRows.add(row);
+                    seatNos.add(i);
                 }
             }
-
-            int[] res = ps.executeBatch();
-            for (int x : res) {
-                if (x > 0 || x == Statement.SUCCESS_NO_INFO)
-                    inserted++;
-            }
         }
 
-        return inserted;
+        if (seatNos.isEmpty()) return 0;
+
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            ps.setLong(1, venueId);
+            ps.setArray(2, con.createArrayOf("varchar", seatSections.toArray()));
+            ps.setArray(3, con.createArrayOf("varchar", seatRows.toArray()));
+            ps.setArray(4, con.createArrayOf("integer", seatNos.toArray()));
+
+            return ps.executeUpdate();
+        }
     }
 
 
     public int attachVenueSeatsToEvent(long eventId,
                                        long venueId,
                                        BigDecimal price) throws SQLException {
+        return attachVenueSeatsToEvent(eventId, venueId, price, null);
+    }
+
+    public int attachVenueSeatsToEvent(long eventId,
+                                       long venueId,
+                                       BigDecimal price,
+                                       SeatBulkLoader.ProgressListener listener) throws SQLException {
+
+        if (countSeatsInVenue(venueId) >= BULK_THRESHOLD)
+            return new SeatBulkLoader().attachVenueSeatsToEvents(List.of(eventId), venueId, price, listener);
 
         String sql = """
             INSERT INTO event_seats (event_id, seat_id, price, state)
@@ -154,7 +197,15 @@ public class SeatDAO {
             ps.setBigDecimal(2, price);
             ps.setLong(3, venueId);
 
-            return ps.executeUpdate();
+            int attached = ps.executeUpdate();
+
+            if (SeatInventoryCache.ENABLED)
+                SeatInventoryCache.get().evict(eventId);
+
+            if (SeatHoldEngine.ENABLED)
+                SeatHoldEngine.get().evict(eventId);
+
+            return attached;
         }
     }
 
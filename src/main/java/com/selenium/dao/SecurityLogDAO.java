@@ -2,6 +2,8 @@ package com.selenium.dao;
 
 import com.selenium.db.DB;
 import com.selenium.model.SecurityLog;
+import com.selenium.security.ActionCounterStore;
+import com.selenium.security.EmailHeavyHitters;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -13,31 +15,105 @@ public class SecurityLogDAO {
 
     public record EmailCount(String email, int count, LocalDateTime lastAt) {}
 
+    public record LogEntry(String level, String action, Long userId, String email, String details) {}
+
+    private static final String INSERT_SQL = """
+            INSERT INTO security_logs(level, action, user_id, email, details)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
 
     public void log(String level, String action, Long userId, String email, String details) {
-        String sql = """
-                INSERT INTO security_logs(level, action, user_id, email, details)
-                VALUES (?, ?, ?, ?, ?)
-                """;
+        LogEntry entry = new LogEntry(level, action, userId, email, details);
+        count(entry);
+
+        if (SecurityLogWriter.ENABLED && SecurityLogWriter.get().offer(entry)) return;
 
         try (Connection con = DB.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+             PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
 
-            ps.setString(1, (level == null || level.isBlank()) ? "INFO" : level.trim().toUpperCase());
-            ps.setString(2, (action == null) ? "UNKNOWN" : action.trim().toUpperCase());
+            bind(ps, entry);
+            ps.executeUpdate();
+        } catch (SQLException ignored) {
 
-            if (userId == null) ps.setNull(3, Types.BIGINT);
-            else ps.setLong(3, userId);
+        }
+    }
 
-            ps.setString(4, email);
-            ps.setString(5, details);
 
-            ps.executeUpdate();
+    public void logBatch(List<LogEntry> entries) {
+        if (entries.isEmpty()) return;
+
+        for (LogEntry e : entries) count(e);
+
+        if (SecurityLogWriter.ENABLED && SecurityLogWriter.get().isRunning()) {
+            for (LogEntry e : entries)
+                if (!SecurityLogWriter.get().offer(e)) insertBatch(List.of(e));
+            return;
+        }
+
+        insertBatch(entries);
+    }
+
+    // joins the caller's transaction
+    public void logBatch(Connection con, List<LogEntry> entries) throws SQLException {
+        if (entries.isEmpty()) return;
+
+        insertBatch(con, entries);
+        for (LogEntry e : entries) count(e);
+    }
+
+    private static void insertBatch(List<LogEntry> entries) {
+        try (Connection con = DB.getConnection()) {
+            insertBatch(con, entries);
         } catch (SQLException ignored) {
 
         }
     }
 
+    private static void insertBatch(Connection con, List<LogEntry> entries) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+            for (LogEntry e : entries) {
+                bind(ps, e);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static void bind(PreparedStatement ps, LogEntry entry) throws SQLException {
+        LogEntry e = normalize(entry);
+
+        ps.setString(1, e.level());
+        ps.setString(2, e.action());
+
+        if (e.userId() == null) ps.setNull(3, Types.BIGINT);
+        else ps.setLong(3, e.userId());
+
+        ps.setString(4, e.email());
+        ps.setString(5, e.details());
+    }
+
+    private static void count(LogEntry entry) {
+        if (!ActionCounterStore.ENABLED && !EmailHeavyHitters.ENABLED) return;
+
+        LogEntry e = normalize(entry);
+        if (ActionCounterStore.ENABLED) ActionCounterStore.get().record(e.action(), e.userId(), e.email());
+        if (EmailHeavyHitters.ENABLED) EmailHeavyHitters.get().record(e.action(), e.email());
+    }
+
+    static LogEntry normalize(LogEntry e) {
+        String level = e.level();
+        String action = e.action();
+
+        return new LogEntry(
+                (level == null || level.isBlank()) ? "INFO" : level.trim().toUpperCase(),
+                (action == null) ? "UNKNOWN" : action.trim().toUpperCase(),
+                e.userId(),
+                e.email(),
+                e.details()
+        );
+    }
+
 
     public List<SecurityLog> getLatest(int limit) throws SQLException {
         if (limit <= 0) limit = 200;
@@ -51,7 +127,7 @@ public class SecurityLogDAO {
 
         List<SecurityLog> out = new ArrayList<>();
 
-        try (Connection con = DB.getConnection();
+        try (Connection con = DB.getReadConnection();
              PreparedStatement ps = con.prepareStatement(sql)) {
 
             ps.setInt(1, limit);
@@ -83,7 +159,7 @@ public class SecurityLogDAO {
 
         List<SecurityLog> out = new ArrayList<>();
 
-        try (Connection con = DB.getConnection();
+        try (Connection con = DB.getReadConnection();
              PreparedStatement ps = con.prepareStatement(sql)) {
 
             ps.setString(1, lvl);
@@ -107,6 +183,9 @@ public class SecurityLogDAO {
 
 
     public int countAction(String action, int minutesBack) {
+        if (ActionCounterStore.ENABLED && ActionCounterStore.get().covers(minutesBack))
+            return ActionCounterStore.get().countAction(action.trim().toUpperCase(), minutesBack);
+
         String sql = """
                 SELECT COUNT(*)
                 FROM security_logs
@@ -134,6 +213,9 @@ public class SecurityLogDAO {
     public int countByUserAndAction(Long userId, String action, int minutesBack) {
         if (userId == null) return 0;
 
+        if (ActionCounterStore.ENABLED && ActionCounterStore.get().covers(minutesBack))
+            return ActionCounterStore.get().countByUserAndAction(userId, action.trim().toUpperCase(), minutesBack);
+
         String sql = """
                 SELECT COUNT(*)
                 FROM security_logs
@@ -163,6 +245,9 @@ public class SecurityLogDAO {
     public int countByEmailAndAction(String email, String action, int minutesBack) {
         if (email == null || email.isBlank()) return 0;
 
+        if (ActionCounterStore.ENABLED && ActionCounterStore.get().covers(minutesBack))
+            return ActionCounterStore.get().countByEmailAndAction(email, action.trim().toUpperCase(), minutesBack);
+
         String sql = """
                 SELECT COUNT(*)
                 FROM security_logs
@@ -192,6 +277,9 @@ public class SecurityLogDAO {
     public List<EmailCount> topEmailsByAction(String action, int minutesBack, int limit) throws SQLException {
         if (limit <= 0) limit = 10;
 
+        if (EmailHeavyHitters.ENABLED && EmailHeavyHitters.get().covers(minutesBack))
+            return EmailHeavyHitters.get().top(action.trim().toUpperCase(), minutesBack, limit);
+
         String sql = """
                 SELECT 
                     LOWER(COALESCE(email,'')) AS email,
@@ -208,7 +296,7 @@ public class SecurityLogDAO {
 
         List<EmailCount> out = new ArrayList<>();
 
-        try (Connection con = DB.getConnection();
+        try (Connection con = DB.getReadConnection();
              PreparedStatement ps = con.prepareStatement(sql)) {
 
             ps.setString(1, action.trim().toUpperCase());
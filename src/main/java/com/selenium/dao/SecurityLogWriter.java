@@ -0,0 +1,432 @@
+package com.selenium.dao;
+
+import com.selenium.db.DB;
+import com.selenium.db.LatencyHistogram;
+import com.selenium.db.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Takes security log entries off the caller's thread: producers put them into a bounded ring, one
+// flusher thread writes them as a single multi-row INSERT per batch, when a batch is full or every
+// flushMs. What happens when the ring is full is set by security.log.overflow.
+public final class SecurityLogWriter {
+
+    public enum OverflowPolicy {
+        // the producer waits for room
+        BLOCK,
+        // the oldest queued entry is overwritten
+        DROP_OLDEST,
+        // the entry goes to a local file, written to the table once the ring has drained
+        SPILL
+    }
+
+    public record WriterStats(
+            int depth,
+            int capacity,
+            long enqueued,
+            long written,
+            long dropped,
+            long spilled,
+            long flushes,
+            long failedFlushes,
+            double flushP50Ms,
+            double flushP99Ms
+    ) {}
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("security.log.async", "true"));
+
+    private static final int CAPACITY = Integer.highestOneBit(Math.max(2, Integer.getInteger("security.log.capacity", 8_192)));
+    private static final int MAX_BATCH = Integer.getInteger("security.log.maxBatch", 500);
+    private static final long FLUSH_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("security.log.flushMs", 50));
+    private static final long RETRY_MS = Long.getLong("security.log.retryMs", 1_000);
+    private static final long MAX_RETRY_MS = Long.getLong("security.log.maxRetryMs", 60_000);
+    private static final OverflowPolicy POLICY =
+            OverflowPolicy.valueOf(System.getProperty("security.log.overflow", "SPILL").trim().toUpperCase());
+    private static final Path SPILL_FILE = Path.of(System.getProperty("security.log.spillFile", "security-log-spill.tsv"));
+
+    private static final String INSERT_SQL = """
+            INSERT INTO security_logs(created_at, level, action, user_id, email, details)
+            SELECT now() - r.age_ms * INTERVAL '1 millisecond', r.level, r.action, r.user_id, r.email, r.details
+            FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::bigint[], ?::varchar[], ?::text[])
+                AS r(age_ms, level, action, user_id, email, details)
+            """;
+
+    private static final TransactionTemplate REPLAY_TX = new TransactionTemplate(
+            "SecurityLogWriter.replaySpill", Connection.TRANSACTION_READ_COMMITTED, 0);
+
+    // created_at is the server's now() less the entry's age, so a skewed client clock cannot move rows out of
+    // the windows the lockout and fraud checks count; the age is taken from System.nanoTime()
+    private record Queued(long seq, long createdAtNanos, SecurityLogDAO.LogEntry entry) {
+
+        long ageMs() {
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createdAtNanos));
+        }
+    }
+
+    private static final SecurityLogWriter INSTANCE = new SecurityLogWriter();
+
+    private final AtomicReferenceArray<Queued> slots = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLong tail = new AtomicLong();
+    // only the flusher moves head
+    private volatile long head;
+
+    private final Object spillLock = new Object();
+
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Thread flusher;
+
+    // spill replay backoff, flusher only
+    private long replayRetryMs = RETRY_MS;
+    private long nextReplayAt;
+
+    private SecurityLogWriter() {}
+
+    public static SecurityLogWriter get() {
+        return INSTANCE;
+    }
+
+
+    public synchronized void start() {
+        if (running) return;
+
+        running = true;
+        flusher = new Thread(this::run, "security-log-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = flusher;
+            flusher = null;
+        }
+        if (t == null) return;
+
+        LockSupport.unpark(t);
+        try {
+            t.join(5_000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+
+    // false when the writer is not running and the caller should write the entry itself
+    public boolean offer(SecurityLogDAO.LogEntry entry) {
+        if (!running) return false;
+
+        long createdAt = System.nanoTime();
+        long seq;
+
+        if (POLICY == OverflowPolicy.DROP_OLDEST) {
+            seq = tail.getAndIncrement();
+        } else {
+            seq = claim();
+            if (seq < 0) {
+                spill(new Queued(seq, createdAt, entry));
+                return true;
+            }
+        }
+
+        Queued q = new Queued(seq, createdAt, entry);
+        // a producer that was lapped must not overwrite the newer entry that lapped it
+        slots.accumulateAndGet(index(seq), q, (cur, mine) -> cur == null || cur.seq() < mine.seq() ? mine : cur);
+        enqueued.increment();
+
+        if (seq - head == MAX_BATCH) {
+            Thread t = flusher;
+            if (t != null) LockSupport.unpark(t);
+        }
+        return true;
+    }
+
+    // next free sequence, waiting for room under BLOCK; -1 when full under SPILL
+    private long claim() {
+        while (true) {
+            long t = tail.get();
+
+            if (t - head >= CAPACITY) {
+                if (POLICY == OverflowPolicy.SPILL || !running) return -1;
+
+                Thread f = flusher;
+                if (f != null) LockSupport.unpark(f);
+                LockSupport.parkNanos(50_000);
+                continue;
+            }
+
+            if (tail.compareAndSet(t, t + 1)) return t;
+        }
+    }
+
+    private static int index(long seq) {
+        return (int) (seq & (CAPACITY - 1));
+    }
+
+
+    private void run() {
+        List<Queued> batch = new ArrayList<>(MAX_BATCH);
+
+        try {
+            flushLoop(batch);
+        } catch (RuntimeException ex) {
+            // with running cleared, producers write their entries themselves instead of waiting for room
+            synchronized (this) {
+                running = false;
+                if (flusher == Thread.currentThread()) flusher = null;
+            }
+            System.out.println("⚠ Security log writer stopped: " + ex);
+
+            for (Queued q : batch) spill(q);
+            batch.clear();
+            drain(batch);
+            for (Queued q : batch) spill(q);
+        }
+    }
+
+    private void flushLoop(List<Queued> batch) {
+        while (running || tail.get() != head || !batch.isEmpty()) {
+            if (batch.isEmpty()) drain(batch);
+
+            if (batch.isEmpty()) {
+                if (!running) break;
+
+                if (System.currentTimeMillis() >= nextReplayAt) replaySpill();
+                LockSupport.parkNanos(FLUSH_NANOS);
+                continue;
+            }
+
+            try {
+                write(batch);
+                batch.clear();
+            } catch (SQLException ex) {
+                failedFlushes.increment();
+                System.out.println("⚠ Security log flush failed: " + ex.getMessage());
+
+                if (POLICY == OverflowPolicy.SPILL || !running) {
+                    for (Queued q : batch) spill(q);
+                    batch.clear();
+                } else {
+                    // keep the batch; the ring fills up meanwhile and the overflow policy applies
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_MS));
+                }
+            }
+
+            if (batch.isEmpty() && tail.get() - head < MAX_BATCH && running)
+                LockSupport.parkNanos(FLUSH_NANOS);
+        }
+    }
+
+    private void drain(List<Queued> batch) {
+        long h = head;
+
+        while (batch.size() < MAX_BATCH) {
+            Queued q = slots.get(index(h));
+
+            // claimed but not published yet
+            if (q == null || q.seq() < h) break;
+
+            if (q.seq() > h) {
+                // overwritten under DROP_OLDEST
+                dropped.increment();
+            } else {
+                batch.add(q);
+            }
+            h++;
+        }
+        head = h;
+    }
+
+    private void write(List<Queued> batch) throws SQLException {
+        long start = System.nanoTime();
+
+        try (Connection con = DB.getConnection()) {
+            insert(con, batch);
+        }
+
+        flushes.increment();
+        written.add(batch.size());
+        flushLatency.record(System.nanoTime() - start);
+    }
+
+    private static void insert(Connection con, List<Queued> batch) throws SQLException {
+        int n = batch.size();
+        Long[] ages = new Long[n];
+        String[] levels = new String[n];
+        String[] actions = new String[n];
+        Long[] userIds = new Long[n];
+        String[] emails = new String[n];
+        String[] details = new String[n];
+
+        for (int i = 0; i < n; i++) {
+            SecurityLogDAO.LogEntry e = SecurityLogDAO.normalize(batch.get(i).entry());
+            ages[i] = batch.get(i).ageMs();
+            levels[i] = e.level();
+            actions[i] = e.action();
+            userIds[i] = e.userId();
+            emails[i] = e.email();
+            details[i] = e.details();
+        }
+
+        try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+            ps.setArray(1, con.createArrayOf("bigint", ages));
+            ps.setArray(2, con.createArrayOf("varchar", levels));
+            ps.setArray(3, con.createArrayOf("varchar", actions));
+            ps.setArray(4, con.createArrayOf("bigint", userIds));
+            ps.setArray(5, con.createArrayOf("varchar", emails));
+            ps.setArray(6, con.createArrayOf("text", details));
+            ps.executeUpdate();
+        }
+    }
+
+
+    // spill file: one tab separated line per entry, created_at millis first, \N for null; the wall clock time
+    // only carries the age over to the replay, which may be in a later run
+    private void spill(Queued q) {
+        SecurityLogDAO.LogEntry e = q.entry();
+        String line = (System.currentTimeMillis() - q.ageMs()) + "\t" + escape(e.level()) + "\t" + escape(e.action()) + "\t"
+                + (e.userId() == null ? "\\N" : e.userId()) + "\t" + escape(e.email()) + "\t" + escape(e.details()) + "\n";
+
+        synchronized (spillLock) {
+            try {
+                Files.writeString(SPILL_FILE, line, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                spilled.increment();
+            } catch (IOException ex) {
+                dropped.increment();
+                System.out.println("⚠ Security log entry dropped: " + ex.getMessage());
+            }
+        }
+    }
+
+    // writes a spill file left by an overflow (or a previous run) in one transaction, then removes it
+    private void replaySpill() {
+        Path replay = SPILL_FILE.resolveSibling(SPILL_FILE.getFileName() + ".replay");
+
+        try {
+            synchronized (spillLock) {
+                if (!Files.exists(replay)) {
+                    if (!Files.exists(SPILL_FILE)) return;
+                    Files.move(SPILL_FILE, replay, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+
+            List<Queued> entries = new ArrayList<>();
+            try (BufferedReader in = Files.newBufferedReader(replay, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    Queued q = parse(line);
+                    if (q != null) entries.add(q);
+                }
+            }
+
+            REPLAY_TX.execute(con -> {
+                for (int from = 0; from < entries.size(); from += MAX_BATCH)
+                    insert(con, entries.subList(from, Math.min(entries.size(), from + MAX_BATCH)));
+                return null;
+            });
+
+            written.add(entries.size());
+            Files.delete(replay);
+            replayRetryMs = RETRY_MS;
+
+        } catch (IOException | SQLException ex) {
+            failedFlushes.increment();
+            System.out.println("⚠ Security log spill not replayed, retrying in " + replayRetryMs + " ms: "
+                    + ex.getMessage());
+
+            nextReplayAt = System.currentTimeMillis() + replayRetryMs;
+            replayRetryMs = Math.min(MAX_RETRY_MS, replayRetryMs * 2);
+        }
+    }
+
+    private static Queued parse(String line) {
+        String[] f = line.split("\t", -1);
+        if (f.length != 6) return null;
+
+        try {
+            long ageMs = Math.max(0, System.currentTimeMillis() - Long.parseLong(f[0]));
+            return new Queued(0, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ageMs), new SecurityLogDAO.LogEntry(
+                    unescape(f[1]),
+                    unescape(f[2]),
+                    "\\N".equals(f[3]) ? null : Long.valueOf(f[3]),
+                    unescape(f[4]),
+                    unescape(f[5])
+            ));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static String escape(String s) {
+        if (s == null) return "\\N";
+        return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String s) {
+        if ("\\N".equals(s)) return null;
+
+        StringBuilder out = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 == s.length()) {
+                out.append(c);
+                continue;
+            }
+
+            char next = s.charAt(++i);
+            out.append(switch (next) {
+                case 't' -> '\t';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                default -> next;
+            });
+        }
+        return out.toString();
+    }
+
+
+    public WriterStats getStats() {
+        return new WriterStats(
+                (int) Math.min(CAPACITY, Math.max(0, tail.get() - head)),
+                CAPACITY,
+                enqueued.sum(),
+                written.sum(),
+                dropped.sum(),
+                spilled.sum(),
+                flushes.sum(),
+                failedFlushes.sum(),
+                flushLatency.percentileNanos(50) / 1e6,
+                flushLatency.percentileNanos(99) / 1e6
+        );
+    }
+}
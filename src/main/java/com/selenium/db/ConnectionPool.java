@@ -0,0 +1,266 @@
+package com.selenium.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConnectionPool implements AutoCloseable {
+
+    private final PoolConfig config;
+    private final Properties connectionProps = new Properties();
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder creates = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    private volatile boolean closed;
+
+    public ConnectionPool(PoolConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize(), true);
+
+        connectionProps.setProperty("user", config.user());
+        connectionProps.setProperty("password", config.password());
+        connectionProps.setProperty("ApplicationName", "ticket-booking-system");
+        // named server-side statements from the first execution, so parse/plan is skipped on reuse
+        connectionProps.setProperty("prepareThreshold", String.valueOf(config.prepareThreshold()));
+        // batched INSERTs go out as multi-row VALUES; their update counts come back as SUCCESS_NO_INFO
+        connectionProps.setProperty("reWriteBatchedInserts", "true");
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                0, config.housekeepingMs(), TimeUnit.MILLISECONDS);
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+
+    public Connection getConnection() throws SQLException {
+        if (closed)
+            throw new SQLException("Connection pool is closed");
+
+        long start = System.nanoTime();
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(config.connectionTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", ex);
+        }
+
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException(
+                    "Connection pool exhausted (max=" + config.maxSize() +
+                            ", waited " + config.connectionTimeoutMs() + "ms)");
+        }
+
+        try {
+            PooledConnection pc = takeIdleOrCreate();
+            recordWait(System.nanoTime() - start);
+
+            Throwable site = config.leakDetectionMs() > 0
+                    ? new Throwable("Connection borrowed here")
+                    : null;
+
+            Connection handle = pc.borrow(site);
+            borrowed.add(pc);
+            borrows.increment();
+            return handle;
+
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+
+    public Connection openUnpooled() throws SQLException {
+        if (closed)
+            throw new SQLException("Connection pool is closed");
+
+        return DriverManager.getConnection(config.url(), connectionProps);
+    }
+
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection pc;
+
+        while ((pc = idle.pollFirst()) != null) {
+            if (isUsable(pc)) return pc;
+
+            validationFailures.increment();
+            destroy(pc);
+        }
+
+        return create();
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long idleFor = System.nanoTime() - pc.lastReturnedAt();
+        if (idleFor < TimeUnit.MILLISECONDS.toNanos(config.validationIntervalMs()))
+            return true;
+
+        try {
+            return pc.physical().isValid(config.validationTimeoutSec());
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(config.url(), connectionProps);
+        total.incrementAndGet();
+        creates.increment();
+        return new PooledConnection(this, physical, config.statementCacheSize(), statementCounters);
+    }
+
+    private void destroy(PooledConnection pc) {
+        total.decrementAndGet();
+        pc.closeQuietly();
+    }
+
+
+    void release(PooledConnection pc, boolean reusable) {
+        borrowed.remove(pc);
+        pc.returned();
+
+        if (closed || !reusable) destroy(pc);
+        else idle.offerFirst(pc);
+
+        permits.release();
+    }
+
+    int defaultIsolation() {
+        return Connection.TRANSACTION_READ_COMMITTED;
+    }
+
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            detectLeaks();
+            fillToMinimum();
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private void evictIdle() {
+        long idleTimeout = TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutMs());
+        long now = System.nanoTime();
+
+        for (PooledConnection pc : idle) {
+            if (total.get() <= config.minSize()) return;
+
+            if (now - pc.lastReturnedAt() > idleTimeout && idle.remove(pc)) {
+                evictions.increment();
+                destroy(pc);
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        if (config.leakDetectionMs() <= 0) return;
+
+        long threshold = TimeUnit.MILLISECONDS.toNanos(config.leakDetectionMs());
+        long now = System.nanoTime();
+
+        for (PooledConnection pc : borrowed) {
+            if (pc.leakReported() || now - pc.borrowedAt() < threshold) continue;
+
+            pc.markLeakReported();
+            leaks.increment();
+
+            System.err.println("⚠ Possible connection leak: held for " +
+                    TimeUnit.NANOSECONDS.toMillis(now - pc.borrowedAt()) + "ms");
+            Throwable site = pc.borrowSite();
+            if (site != null) site.printStackTrace();
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && total.get() < config.minSize()) {
+            try {
+                idle.offerLast(create());
+            } catch (SQLException ex) {
+                return;
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        JdbcMetrics.recordConnectionWait(nanos);
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+
+    public PoolStats getStats() {
+        long b = borrows.sum();
+        int idleCount = idle.size();
+        int active = borrowed.size();
+
+        return new PoolStats(
+                total.get(),
+                idleCount,
+                active,
+                permits.getQueueLength(),
+                b,
+                creates.sum(),
+                evictions.sum(),
+                validationFailures.sum(),
+                timeouts.sum(),
+                leaks.sum(),
+                b == 0 ? 0 : waitNanos.sum() / 1_000.0 / b,
+                maxWaitNanos.get() / 1_000.0
+        );
+    }
+
+
+    public StatementCacheStats getStatementCacheStats() {
+        return statementCounters.snapshot();
+    }
+
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) destroy(pc);
+    }
+}
@@ -1,19 +1,104 @@
 package com.selenium.db;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public final class DB {
-    private static final String URL  = "jdbc:postgresql://localhost:5432/ticket_booking_db";
+    private static final String URL  = System.getProperty("db.url", "jdbc:postgresql://localhost:5432/ticket_booking_db");
     //Default database credentials for testing
-    private static final String USER = "postgres";
-    private static final String PASS = "postgres";
+    private static final String USER = System.getProperty("db.user", "postgres");
+    private static final String PASS = System.getProperty("db.password", "postgres");
+
+    private static volatile ConnectionPool pool;
+    private static volatile ReplicaRouter router;
 
     private DB() {}
 
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASS);
+        return pool().getConnection();
+    }
+
+    public static Connection getReadConnection() throws SQLException {
+        return router().getReadConnection(null);
+    }
+
+    public static Connection getReadConnection(long userId) throws SQLException {
+        return router().getReadConnection(userId);
+    }
+
+    public static Connection getReadConnectionAfterAnyWrite() throws SQLException {
+        return router().getReadConnectionAfterAnyWrite();
+    }
+
+    public static Connection openDedicatedConnection() throws SQLException {
+        return pool().openUnpooled();
+    }
+
+    public static void markWrite(long userId) {
+        router().markWrite(userId);
+    }
+
+    public static void markWrite() {
+        router().markWrite();
+    }
+
+    public static ConnectionPool pool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DB.class) {
+                p = pool;
+                if (p == null) {
+                    p = new ConnectionPool(PoolConfig.fromSystemProperties(URL, USER, PASS));
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    public static ReplicaRouter router() {
+        ReplicaRouter r = router;
+        if (r == null) {
+            synchronized (DB.class) {
+                r = router;
+                if (r == null) {
+                    r = ReplicaRouter.fromSystemProperties(pool(), USER, PASS);
+                    router = r;
+                }
+            }
+        }
+        return r;
+    }
+
+    public static PoolStats poolStats() {
+        return pool().getStats();
     }
-}
 
+    public static StatementCacheStats statementCacheStats() {
+        return pool().getStatementCacheStats();
+    }
+
+    public static synchronized void shutdown() {
+        String reportFile = System.getProperty("db.metrics.reportFile");
+        if (reportFile != null && !reportFile.isBlank()) {
+            try {
+                JdbcMetrics.dumpReport(Path.of(reportFile));
+            } catch (IOException ex) {
+                System.out.println("⚠ JDBC report not written: " + ex.getMessage());
+            }
+        }
+
+        SlowQueryRecorder.shutdown();
+
+        if (router != null) {
+            router.close();
+            router = null;
+        }
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+}
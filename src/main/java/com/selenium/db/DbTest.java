@@ -1,11 +1,32 @@
 package com.selenium.db;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 
 public class DbTest {
     public static void main(String[] args) throws Exception {
         try (Connection c = DB.getConnection()) {
             System.out.println("Connected " + c.getMetaData().getDatabaseProductName());
         }
+
+        // give the lag monitor one round before routing reads
+        DB.router();
+        Thread.sleep(500);
+
+        try (Connection c = DB.getReadConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT inet_server_port(), pg_is_in_recovery()");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            System.out.println("Read served by port " + rs.getInt(1) + " (replica=" + rs.getBoolean(2) + ")");
+        }
+
+        for (ReplicaRouter.ReplicaStatus s : DB.router().getStatus())
+            System.out.println("Replica " + s);
+
+        System.out.println("Pool " + DB.poolStats());
+        System.out.print(JdbcMetrics.report());
+        System.out.print(SlowQueryRecorder.report());
+        DB.shutdown();
     }
 }
@@ -0,0 +1,177 @@
+package com.selenium.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+final class InstrumentedStatement implements InvocationHandler {
+
+    private final Statement target;
+    private final Connection owner;
+    private final String preparedSql;
+    private final JdbcMetrics.Timer prepared;
+    private JdbcMetrics.Timer last;
+
+    private Object[] binds;
+    private boolean bindsExplainable = true;
+
+    private InstrumentedStatement(Statement target, Connection owner, String sql) {
+        this.target = target;
+        this.owner = owner;
+        this.preparedSql = sql;
+        this.prepared = sql == null ? null : JdbcMetrics.timer(sql);
+        this.last = prepared;
+    }
+
+    static Object wrap(Class<?> iface, Statement target, Connection owner, String sql) {
+        return Proxy.newProxyInstance(
+                iface.getClassLoader(),
+                new Class<?>[]{iface},
+                new InstrumentedStatement(target, owner, sql)
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+
+        switch (name) {
+            case "getConnection" -> {
+                return owner;
+            }
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            case "getResultSet" -> {
+                Object rs = call(method, args);
+                return rs == null || last == null ? rs : wrapResultSet((ResultSet) rs, last, proxy);
+            }
+            case "clearParameters" -> {
+                binds = null;
+                bindsExplainable = true;
+            }
+            default -> { }
+        }
+
+        if (!name.startsWith("execute")) {
+            if (SlowQueryRecorder.ENABLED && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer index)
+                captureBind(index, "setNull".equals(name) ? null : args[1]);
+
+            return call(method, args);
+        }
+
+        // Statement.execute*(sql, ...) carries its own SQL; PreparedStatement.execute*() uses the prepared one
+        boolean ownSql = args != null && args.length > 0 && args[0] instanceof String;
+        String sql = ownSql ? (String) args[0] : preparedSql;
+        JdbcMetrics.Timer timer = ownSql ? JdbcMetrics.timer(sql) : prepared;
+
+        if (timer == null)
+            return call(method, args);
+
+        last = timer;
+        long start = System.nanoTime();
+        Object result;
+
+        try {
+            result = call(method, args);
+        } catch (Throwable ex) {
+            finished(timer, sql, ownSql, name, System.nanoTime() - start, false);
+            throw ex;
+        }
+
+        finished(timer, sql, ownSql, name, System.nanoTime() - start, true);
+
+        if (result instanceof ResultSet rs) return wrapResultSet(rs, timer, proxy);
+        if (result instanceof Integer n && n > 0) timer.addRows(n);
+        else if (result instanceof Long n && n > 0) timer.addRows(n);
+        else if (result instanceof int[] counts) timer.addRows(affected(counts));
+        else if (result instanceof long[] counts) timer.addRows(affected(counts));
+
+        return result;
+    }
+
+    private void finished(JdbcMetrics.Timer timer, String sql, boolean ownSql, String method,
+                          long nanos, boolean ok) {
+        timer.record(nanos, ok);
+
+        if (SlowQueryRecorder.ENABLED && nanos >= SlowQueryRecorder.THRESHOLD_NANOS) {
+            Object[] values = ownSql ? null : binds;
+            boolean explainable = !"executeBatch".equals(method)
+                    && (ownSql || bindsExplainable)
+                    && SlowQueryRecorder.canExplain(sql);
+
+            SlowQueryRecorder.record(timer.name(), sql, values, explainable, nanos);
+        }
+    }
+
+    private void captureBind(int index, Object value) {
+        if (index < 1) return;
+
+        if (binds == null) binds = new Object[index];
+        else if (binds.length < index) binds = Arrays.copyOf(binds, index);
+
+        binds[index - 1] = value;
+        if (!SlowQueryRecorder.isSimpleBind(value)) bindsExplainable = false;
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static long affected(int[] counts) {
+        long n = 0;
+        for (int c : counts) if (c > 0) n += c;
+        return n;
+    }
+
+    private static long affected(long[] counts) {
+        long n = 0;
+        for (long c : counts) if (c > 0) n += c;
+        return n;
+    }
+
+    private static ResultSet wrapResultSet(ResultSet rs, JdbcMetrics.Timer timer, Object statement) {
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getStatement" -> {
+                            return statement;
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        default -> { }
+                    }
+
+                    Object result;
+                    try {
+                        result = method.invoke(rs, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+
+                    if ("next".equals(method.getName()) && Boolean.TRUE.equals(result))
+                        timer.addRows(1);
+
+                    return result;
+                });
+    }
+}
@@ -0,0 +1,207 @@
+package com.selenium.db;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class JdbcMetrics {
+
+    public record StatementStats(
+            String name,
+            long calls,
+            long errors,
+            long rows,
+            double totalMs,
+            double meanMs,
+            double p50Ms,
+            double p95Ms,
+            double p99Ms,
+            double maxMs
+    ) {}
+
+    public record WaitStats(long count, double meanMs, double p50Ms, double p99Ms, double maxMs) {}
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.metrics.enabled", "true"));
+
+    private static final int MAX_CACHED_NAMES = 2_048;
+    private static final String UNKNOWN = "unnamed";
+
+    private static final Set<String> SKIPPED_PREFIXES = Set.of(
+            "com.selenium.db.", "java.", "javax.", "jdk.", "sun.", "com.sun.", "org.postgresql."
+    );
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, String> NAMES_BY_SQL = new ConcurrentHashMap<>();
+    private static final LatencyHistogram CONNECTION_WAIT = new LatencyHistogram();
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private JdbcMetrics() {}
+
+
+    static Timer timer(String sql) {
+        return TIMERS.computeIfAbsent(nameFor(sql), Timer::new);
+    }
+
+    static void recordConnectionWait(long nanos) {
+        if (ENABLED) CONNECTION_WAIT.record(nanos);
+    }
+
+    // "/* SeatDAO.loadSeats */ SELECT ..." names itself, anything else is named after the DAO method running it
+    static String nameFor(String sql) {
+        String cached = NAMES_BY_SQL.get(sql);
+        if (cached != null) return cached;
+
+        String name = leadingComment(sql);
+        if (name == null) name = callerName();
+
+        if (NAMES_BY_SQL.size() < MAX_CACHED_NAMES)
+            NAMES_BY_SQL.putIfAbsent(sql, name);
+
+        return name;
+    }
+
+    private static String leadingComment(String sql) {
+        String s = sql.stripLeading();
+        if (!s.startsWith("/*")) return null;
+
+        int end = s.indexOf("*/");
+        if (end < 0) return null;
+
+        String name = s.substring(2, end).trim();
+        return name.isEmpty() ? null : name;
+    }
+
+    private static String callerName() {
+        Optional<StackWalker.StackFrame> frame = WALKER.walk(frames -> frames
+                .filter(f -> !skipped(f.getClassName()))
+                .findFirst());
+
+        if (frame.isEmpty()) return UNKNOWN;
+
+        String cls = frame.get().getClassName();
+        cls = cls.substring(cls.lastIndexOf('.') + 1);
+        int nested = cls.indexOf('$');
+        if (nested > 0) cls = cls.substring(0, nested);
+
+        String method = frame.get().getMethodName();
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', 7);
+            method = end > 7 ? method.substring(7, end) : method;
+        }
+
+        return cls + "." + method;
+    }
+
+    private static boolean skipped(String className) {
+        if (className.contains("$Proxy")) return true;
+        for (String p : SKIPPED_PREFIXES)
+            if (className.startsWith(p)) return true;
+        return false;
+    }
+
+
+    public static List<StatementStats> snapshot() {
+        List<StatementStats> out = new ArrayList<>();
+        for (Timer t : TIMERS.values()) out.add(t.snapshot());
+        out.sort(Comparator.comparingDouble(StatementStats::totalMs).reversed());
+        return out;
+    }
+
+    public static Optional<StatementStats> get(String name) {
+        Timer t = TIMERS.get(name);
+        return t == null ? Optional.empty() : Optional.of(t.snapshot());
+    }
+
+    public static WaitStats connectionWait() {
+        return new WaitStats(
+                CONNECTION_WAIT.count(),
+                CONNECTION_WAIT.meanNanos() / 1e6,
+                CONNECTION_WAIT.percentileNanos(50) / 1e6,
+                CONNECTION_WAIT.percentileNanos(99) / 1e6,
+                CONNECTION_WAIT.maxNanos() / 1e6
+        );
+    }
+
+    public static void reset() {
+        TIMERS.clear();
+        CONNECTION_WAIT.reset();
+    }
+
+
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("JDBC report ").append(LocalDateTime.now()).append('\n');
+
+        WaitStats w = connectionWait();
+        sb.append(String.format("connection wait: n=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms%n%n",
+                w.count(), w.meanMs(), w.p50Ms(), w.p99Ms(), w.maxMs()));
+
+        sb.append(String.format("%-48s %8s %6s %10s %10s %9s %9s %9s %9s %9s%n",
+                "statement", "calls", "errors", "rows", "total ms", "mean", "p50", "p95", "p99", "max"));
+
+        for (StatementStats s : snapshot()) {
+            sb.append(String.format("%-48s %8d %6d %10d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    s.name(), s.calls(), s.errors(), s.rows(), s.totalMs(),
+                    s.meanMs(), s.p50Ms(), s.p95Ms(), s.p99Ms(), s.maxMs()));
+        }
+
+        return sb.toString();
+    }
+
+    public static void dumpReport(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Files.writeString(file, report(), StandardCharsets.UTF_8);
+    }
+
+
+    static final class Timer {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        Timer(String name) {
+            this.name = name;
+        }
+
+        String name() {
+            return name;
+        }
+
+        void record(long nanos, boolean ok) {
+            latency.record(nanos);
+            if (!ok) errors.increment();
+        }
+
+        void addRows(long n) {
+            rows.add(n);
+        }
+
+        StatementStats snapshot() {
+            return new StatementStats(
+                    name,
+                    latency.count(),
+                    errors.sum(),
+                    rows.sum(),
+                    latency.totalNanos() / 1e6,
+                    latency.meanNanos() / 1e6,
+                    latency.percentileNanos(50) / 1e6,
+                    latency.percentileNanos(95) / 1e6,
+                    latency.percentileNanos(99) / 1e6,
+                    latency.maxNanos() / 1e6
+            );
+        }
+    }
+}
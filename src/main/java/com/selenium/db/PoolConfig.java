@@ -0,0 +1,44 @@
+package com.selenium.db;
+
+public record PoolConfig(
+        String url,
+        String user,
+        String password,
+        int minSize,
+        int maxSize,
+        long connectionTimeoutMs,
+        long idleTimeoutMs,
+        long validationIntervalMs,
+        int validationTimeoutSec,
+        long leakDetectionMs,
+        long housekeepingMs,
+        int statementCacheSize,
+        int prepareThreshold
+) {
+
+    public PoolConfig {
+        if (minSize < 0) minSize = 0;
+        if (maxSize < 1) maxSize = 1;
+        if (minSize > maxSize) minSize = maxSize;
+        if (validationTimeoutSec < 1) validationTimeoutSec = 1;
+        if (housekeepingMs < 100) housekeepingMs = 100;
+    }
+
+    public static PoolConfig fromSystemProperties(String url, String user, String password) {
+        return new PoolConfig(
+                url,
+                user,
+                password,
+                Integer.getInteger("db.pool.minSize", 2),
+                Integer.getInteger("db.pool.maxSize", 10),
+                Long.getLong("db.pool.connectionTimeoutMs", 5_000),
+                Long.getLong("db.pool.idleTimeoutMs", 300_000),
+                Long.getLong("db.pool.validationIntervalMs", 1_000),
+                Integer.getInteger("db.pool.validationTimeoutSec", 2),
+                Long.getLong("db.pool.leakDetectionMs", 30_000),
+                Long.getLong("db.pool.housekeepingMs", 5_000),
+                Integer.getInteger("db.statementCacheSize", 64),
+                Integer.getInteger("db.prepareThreshold", 1)
+        );
+    }
+}
@@ -0,0 +1,26 @@
+package com.selenium.db;
+
+public record PoolStats(
+        int total,
+        int idle,
+        int active,
+        int waiting,
+        long borrows,
+        long creates,
+        long evictions,
+        long validationFailures,
+        long timeouts,
+        long leaks,
+        double avgWaitMicros,
+        double maxWaitMicros
+) {
+
+    @Override
+    public String toString() {
+        return String.format(
+                "total=%d idle=%d active=%d waiting=%d borrows=%d creates=%d evictions=%d " +
+                        "validationFailures=%d timeouts=%d leaks=%d avgWait=%.1fus maxWait=%.1fus",
+                total, idle, active, waiting, borrows, creates, evictions,
+                validationFailures, timeouts, leaks, avgWaitMicros, maxWaitMicros);
+    }
+}
@@ -0,0 +1,160 @@
+package com.selenium.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+final class PooledConnection {
+
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final StatementCache statements;
+    private final long createdAt = System.nanoTime();
+
+    private volatile long lastReturnedAt = System.nanoTime();
+    private volatile long borrowedAt;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+
+    PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize,
+                     StatementCache.Counters counters) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statements = new StatementCache(physical, statementCacheSize, counters);
+    }
+
+    Connection physical() { return physical; }
+    long createdAt() { return createdAt; }
+    long lastReturnedAt() { return lastReturnedAt; }
+    long borrowedAt() { return borrowedAt; }
+    Throwable borrowSite() { return borrowSite; }
+
+    boolean leakReported() { return leakReported; }
+    void markLeakReported() { leakReported = true; }
+
+    Connection borrow(Throwable site) {
+        borrowedAt = System.nanoTime();
+        borrowSite = site;
+        leakReported = false;
+
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Handle()
+        );
+    }
+
+    void returned() {
+        statements.releaseAll();
+        borrowSite = null;
+        lastReturnedAt = System.nanoTime();
+    }
+
+    void closeQuietly() {
+        statements.closeAll();
+        try {
+            physical.close();
+        } catch (SQLException ignored) {
+
+        }
+    }
+
+
+    private final class Handle implements InvocationHandler {
+
+        private boolean closed;
+        private boolean broken;
+        private boolean isolationChanged;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            switch (name) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this, !broken && reset());
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || physical.isClosed();
+                }
+                case "unwrap" -> {
+                    Class<?> iface = (Class<?>) args[0];
+                    if (iface.isInstance(proxy)) return proxy;
+                    return physical.unwrap(iface);
+                }
+                case "isWrapperFor" -> {
+                    Class<?> iface = (Class<?>) args[0];
+                    return iface.isInstance(proxy) || physical.isWrapperFor(iface);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + physical + (closed ? ", closed" : "") + "]";
+                }
+                case "prepareStatement" -> {
+                    if (!closed && args.length == 1) {
+                        String sql = (String) args[0];
+                        return instrument(method, statements.prepare(sql, (Connection) proxy), proxy, sql);
+                    }
+                }
+                case "setTransactionIsolation" -> isolationChanged = true;
+                default -> { }
+            }
+
+            if (closed)
+                throw new SQLException("Connection is closed", "08003");
+
+            try {
+                Object result = method.invoke(physical, args);
+
+                if (result instanceof Statement st) {
+                    String sql = args != null && args[0] instanceof String text ? text : null;
+                    return instrument(method, st, proxy, sql);
+                }
+
+                return result;
+            } catch (InvocationTargetException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof SQLException se && isFatal(se)) broken = true;
+                throw cause;
+            }
+        }
+
+        private Object instrument(Method method, Statement st, Object proxy, String sql) {
+            if (!JdbcMetrics.ENABLED) return st;
+            return InstrumentedStatement.wrap(method.getReturnType(), st, (Connection) proxy, sql);
+        }
+
+        private boolean reset() {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) physical.setReadOnly(false);
+                if (isolationChanged) physical.setTransactionIsolation(pool.defaultIsolation());
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+    }
+
+    private static boolean isFatal(SQLException ex) {
+        String state = ex.getSQLState();
+        return state != null && (state.startsWith("08") || state.equals("57P01"));
+    }
+}
@@ -0,0 +1,230 @@
+package com.selenium.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ReplicaRouter implements AutoCloseable {
+
+    public record ReplicaStatus(String url, boolean healthy, long lagMs, long reads) {}
+
+    private static final String LAG_SQL = """
+            /* ReplicaRouter.lag */
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() THEN 0
+                     WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END::bigint
+            """;
+
+    private final ConnectionPool primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMs;
+    private final long stickyNanos;
+
+    private final Map<Long, Long> lastWriteByKey = new ConcurrentHashMap<>();
+    private volatile long lastAnyWrite;
+    private volatile boolean anyWrite;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService lagMonitor;
+
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder stickyReads = new LongAdder();
+
+    public ReplicaRouter(ConnectionPool primary, List<PoolConfig> replicaConfigs,
+                         long maxLagMs, long stickyMs, long lagCheckMs) {
+        this.primary = primary;
+        this.maxLagMs = maxLagMs;
+        this.stickyNanos = TimeUnit.MILLISECONDS.toNanos(stickyMs);
+
+        for (PoolConfig cfg : replicaConfigs)
+            replicas.add(new Replica(cfg.url(), new ConnectionPool(cfg)));
+
+        if (replicas.isEmpty()) {
+            lagMonitor = null;
+            return;
+        }
+
+        lagMonitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-replica-lag-monitor");
+            t.setDaemon(true);
+            return t;
+        });
+        lagMonitor.scheduleWithFixedDelay(this::checkReplicas, 0, lagCheckMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static ReplicaRouter fromSystemProperties(ConnectionPool primary, String user, String password) {
+        List<PoolConfig> configs = new ArrayList<>();
+
+        String urls = System.getProperty("db.replica.urls", "");
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) continue;
+            configs.add(PoolConfig.fromSystemProperties(
+                    url.trim(),
+                    System.getProperty("db.replica.user", user),
+                    System.getProperty("db.replica.password", password)
+            ));
+        }
+
+        return new ReplicaRouter(
+                primary,
+                configs,
+                Long.getLong("db.replica.maxLagMs", 5_000),
+                Long.getLong("db.replica.readYourWritesMs", 10_000),
+                Long.getLong("db.replica.lagCheckMs", 2_000)
+        );
+    }
+
+
+    public Connection getReadConnection(Long stickyKey) throws SQLException {
+        if (replicas.isEmpty())
+            return primary.getConnection();
+
+        if (stickyKey != null && recentlyWrote(stickyKey)) {
+            stickyReads.increment();
+            return primary.getConnection();
+        }
+        return replicaConnection();
+    }
+
+    // sticky after any write through this router, for reads not tied to one user such as event availability
+    public Connection getReadConnectionAfterAnyWrite() throws SQLException {
+        if (replicas.isEmpty())
+            return primary.getConnection();
+
+        if (anyWrite && System.nanoTime() - lastAnyWrite <= stickyNanos) {
+            stickyReads.increment();
+            return primary.getConnection();
+        }
+        return replicaConnection();
+    }
+
+    private Connection replicaConnection() throws SQLException {
+        int n = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), n);
+
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((start + i) % n);
+            if (!r.healthy || r.lagMs > maxLagMs) continue;
+
+            Connection c;
+            try {
+                c = r.pool.getConnection();
+            } catch (SQLException ex) {
+                r.healthy = false;
+                continue;
+            }
+
+            // a write sent here fails on the first statement instead of on the replica's recovery check
+            try {
+                c.setReadOnly(true);
+            } catch (SQLException ex) {
+                c.close();
+                r.healthy = false;
+                continue;
+            }
+            r.reads.increment();
+            return c;
+        }
+
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    public void markWrite(long stickyKey) {
+        if (replicas.isEmpty()) return;
+
+        long now = System.nanoTime();
+        lastWriteByKey.put(stickyKey, now);
+        markAnyWrite(now);
+    }
+
+    public void markWrite() {
+        if (!replicas.isEmpty())
+            markAnyWrite(System.nanoTime());
+    }
+
+    private void markAnyWrite(long now) {
+        lastAnyWrite = now;
+        anyWrite = true;
+    }
+
+    private boolean recentlyWrote(long key) {
+        Long at = lastWriteByKey.get(key);
+        if (at == null) return false;
+
+        if (System.nanoTime() - at > stickyNanos) {
+            lastWriteByKey.remove(key, at);
+            return false;
+        }
+        return true;
+    }
+
+
+    private void checkReplicas() {
+        for (Replica r : replicas) {
+            try (Connection c = r.pool.getConnection();
+                 PreparedStatement ps = c.prepareStatement(LAG_SQL);
+                 ResultSet rs = ps.executeQuery()) {
+
+                rs.next();
+                r.lagMs = rs.getLong(1);
+                r.healthy = true;
+
+            } catch (SQLException ex) {
+                r.healthy = false;
+            }
+        }
+
+        long now = System.nanoTime();
+        lastWriteByKey.entrySet().removeIf(e -> now - e.getValue() > stickyNanos);
+    }
+
+
+    public List<ReplicaStatus> getStatus() {
+        List<ReplicaStatus> out = new ArrayList<>();
+        for (Replica r : replicas)
+            out.add(new ReplicaStatus(r.url, r.healthy, r.lagMs, r.reads.sum()));
+        return out;
+    }
+
+    public long getPrimaryFallbackReads() {
+        return primaryReads.sum();
+    }
+
+    public long getStickyReads() {
+        return stickyReads.sum();
+    }
+
+
+    @Override
+    public void close() {
+        if (lagMonitor != null) lagMonitor.shutdownNow();
+        for (Replica r : replicas) r.pool.close();
+    }
+
+
+    private static final class Replica {
+        final String url;
+        final ConnectionPool pool;
+        final LongAdder reads = new LongAdder();
+
+        volatile boolean healthy;
+        volatile long lagMs;
+
+        Replica(String url, ConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+    }
+}
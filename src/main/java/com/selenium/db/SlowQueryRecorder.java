@@ -0,0 +1,315 @@
+package com.selenium.db;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+public final class SlowQueryRecorder {
+
+    public record SlowQuery(
+            String fingerprint,
+            String name,
+            String sql,
+            List<String> binds,
+            double elapsedMs,
+            double maxMs,
+            long occurrences,
+            LocalDateTime firstSeen,
+            LocalDateTime lastSeen,
+            String plan
+    ) {}
+
+    static final long THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("db.slow.thresholdMs", 200));
+    static final boolean ENABLED = JdbcMetrics.ENABLED && THRESHOLD_NANOS > 0;
+
+    private static final int CAPACITY = Integer.getInteger("db.slow.capacity", 200);
+    private static final long REEXPLAIN_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("db.slow.reexplainMs", 600_000));
+    private static final long EXPLAIN_TIMEOUT_MS = Long.getLong("db.slow.explainTimeoutMs", 5_000);
+    private static final String LOG_FILE = System.getProperty("db.slow.logFile", "");
+
+    private static final Pattern COMMENTS = Pattern.compile("/\\*.*?\\*/|--[^\\n]*", Pattern.DOTALL);
+    private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern WRITES = Pattern.compile("\\b(INSERT|UPDATE|DELETE|MERGE)\\b");
+
+    private static final ArrayDeque<Entry> RING = new ArrayDeque<>();
+    private static final Map<String, Entry> BY_FINGERPRINT = new HashMap<>();
+
+    private static final LongAdder DROPPED = new LongAdder();
+
+    private static ThreadPoolExecutor explainer;
+    private static volatile Thread explainerThread;
+
+    private SlowQueryRecorder() {}
+
+
+    static void record(String name, String sql, Object[] binds, boolean explainable, long elapsedNanos) {
+        if (Thread.currentThread() == explainerThread) return;
+
+        String fingerprint = fingerprint(name, sql);
+        List<String> bindText = describe(binds);
+        LocalDateTime now = LocalDateTime.now();
+        long nowNanos = System.nanoTime();
+
+        Entry e;
+        boolean explain;
+        boolean first;
+
+        synchronized (SlowQueryRecorder.class) {
+            e = BY_FINGERPRINT.get(fingerprint);
+
+            if (e == null) {
+                e = new Entry(fingerprint, name, sql, now);
+                BY_FINGERPRINT.put(fingerprint, e);
+                RING.addLast(e);
+
+                while (RING.size() > CAPACITY)
+                    BY_FINGERPRINT.remove(RING.removeFirst().fingerprint);
+            } else {
+                RING.remove(e);
+                RING.addLast(e);
+            }
+
+            first = ++e.occurrences == 1;
+            e.lastSeen = now;
+            e.maxNanos = Math.max(e.maxNanos, elapsedNanos);
+
+            // a plan is captured once per fingerprint, and again only after the re-explain interval
+            explain = explainable && (e.explainedAt == 0 || nowNanos - e.explainedAt > REEXPLAIN_NANOS);
+
+            if (explain || e.plan == null) {
+                e.elapsedNanos = elapsedNanos;
+                e.binds = bindText;
+            }
+            if (explain) e.explainedAt = nowNanos;
+        }
+
+        if (!explain) {
+            if (first) append(e.snapshot());
+            return;
+        }
+
+        Entry target = e;
+        Object[] values = binds == null ? new Object[0] : binds.clone();
+
+        try {
+            executor().execute(() -> {
+                String plan = explain(sql, values);
+                synchronized (SlowQueryRecorder.class) {
+                    target.plan = plan;
+                }
+                append(target.snapshot());
+            });
+        } catch (RuntimeException ex) {
+            DROPPED.increment();
+        }
+    }
+
+    static boolean isSimpleBind(Object value) {
+        return value == null
+                || value instanceof Number
+                || value instanceof String
+                || value instanceof Boolean
+                || value instanceof Date
+                || value instanceof Temporal;
+    }
+
+
+    private static String explain(String sql, Object[] binds) {
+        String prefix = isQuery(sql)
+                ? "/* SlowQueryRecorder.explain */ EXPLAIN (ANALYZE, BUFFERS) "
+                : "/* SlowQueryRecorder.explain */ EXPLAIN ";
+
+        try (Connection con = DB.getConnection()) {
+            con.setAutoCommit(false);
+
+            try {
+                try (Statement st = con.createStatement()) {
+                    st.execute("/* SlowQueryRecorder.explain */ SET LOCAL statement_timeout = " + EXPLAIN_TIMEOUT_MS);
+                }
+
+                try (PreparedStatement ps = con.prepareStatement(prefix + sql)) {
+                    for (int i = 0; i < binds.length; i++) {
+                        if (binds[i] == null) ps.setNull(i + 1, Types.NULL);
+                        else ps.setObject(i + 1, binds[i]);
+                    }
+
+                    StringBuilder plan = new StringBuilder();
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) plan.append(rs.getString(1)).append('\n');
+                    }
+                    return plan.toString();
+                }
+
+            } finally {
+                // ANALYZE really runs the statement; never keep what it did
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+
+        } catch (SQLException | RuntimeException ex) {
+            return "EXPLAIN failed: " + ex.getMessage();
+        }
+    }
+
+    static boolean canExplain(String sql) {
+        String s = normalize(sql);
+        return s.startsWith("SELECT") || s.startsWith("WITH") || s.startsWith("VALUES")
+                || s.startsWith("INSERT") || s.startsWith("UPDATE") || s.startsWith("DELETE");
+    }
+
+    private static boolean isQuery(String sql) {
+        String s = normalize(sql);
+        if (s.startsWith("SELECT") || s.startsWith("VALUES")) return true;
+        return s.startsWith("WITH") && !WRITES.matcher(s).find();
+    }
+
+    private static String normalize(String sql) {
+        return SPACES.matcher(COMMENTS.matcher(sql).replaceAll(" ")).replaceAll(" ").trim().toUpperCase();
+    }
+
+    static String fingerprint(String name, String sql) {
+        String normalized = COMMENTS.matcher(sql).replaceAll(" ");
+        normalized = LITERALS.matcher(normalized).replaceAll("?");
+        normalized = SPACES.matcher(normalized).replaceAll(" ").trim().toLowerCase();
+
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < normalized.length(); i++) {
+            h ^= normalized.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return name + "#" + Long.toHexString(h);
+    }
+
+    private static List<String> describe(Object[] binds) {
+        if (binds == null) return List.of();
+
+        List<String> out = new ArrayList<>(binds.length);
+        for (Object b : binds) {
+            if (b == null) out.add("NULL");
+            else if (b instanceof String s) out.add("'" + s + "'");
+            else if (b instanceof BigDecimal d) out.add(d.toPlainString());
+            else out.add(String.valueOf(b));
+        }
+        return out;
+    }
+
+    private static synchronized ThreadPoolExecutor executor() {
+        if (explainer == null) {
+            explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(64),
+                    r -> {
+                        Thread t = new Thread(r, "db-slow-query-explainer");
+                        t.setDaemon(true);
+                        explainerThread = t;
+                        return t;
+                    },
+                    (r, ex) -> DROPPED.increment());
+        }
+        return explainer;
+    }
+
+    private static void append(SlowQuery q) {
+        if (LOG_FILE.isBlank()) return;
+
+        try {
+            Files.writeString(Path.of(LOG_FILE), format(q) + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            System.out.println("⚠ Slow query log not written: " + ex.getMessage());
+        }
+    }
+
+
+    public static synchronized List<SlowQuery> recent() {
+        List<SlowQuery> out = new ArrayList<>(RING.size());
+        for (Entry e : RING) out.add(e.snapshot());
+        out.sort((a, b) -> Double.compare(b.maxMs(), a.maxMs()));
+        return out;
+    }
+
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        for (SlowQuery q : recent()) sb.append(format(q)).append('\n');
+        return sb.toString();
+    }
+
+    public static long getDropped() {
+        return DROPPED.sum();
+    }
+
+    public static synchronized void clear() {
+        RING.clear();
+        BY_FINGERPRINT.clear();
+    }
+
+    static synchronized void shutdown() {
+        if (explainer != null) {
+            explainer.shutdownNow();
+            explainer = null;
+        }
+    }
+
+    private static String format(SlowQuery q) {
+        return "-- " + q.name() + " [" + q.fingerprint() + "]"
+                + String.format(" elapsed=%.1fms max=%.1fms n=%d", q.elapsedMs(), q.maxMs(), q.occurrences())
+                + " last=" + q.lastSeen() + "\n"
+                + q.sql().strip() + "\n"
+                + "-- binds: " + q.binds() + "\n"
+                + (q.plan() == null ? "-- no plan\n" : q.plan());
+    }
+
+
+    private static final class Entry {
+        final String fingerprint;
+        final String name;
+        final String sql;
+        final LocalDateTime firstSeen;
+
+        LocalDateTime lastSeen;
+        List<String> binds = List.of();
+        long occurrences;
+        long elapsedNanos;
+        long maxNanos;
+        long explainedAt;
+        String plan;
+
+        Entry(String fingerprint, String name, String sql, LocalDateTime firstSeen) {
+            this.fingerprint = fingerprint;
+            this.name = name;
+            this.sql = sql;
+            this.firstSeen = firstSeen;
+            this.lastSeen = firstSeen;
+        }
+
+        SlowQuery snapshot() {
+            synchronized (SlowQueryRecorder.class) {
+                return new SlowQuery(fingerprint, name, sql, binds,
+                        elapsedNanos / 1e6, maxNanos / 1e6, occurrences,
+                        firstSeen, lastSeen, plan);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.selenium.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+final class StatementCache {
+
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+
+        StatementCacheStats snapshot() {
+            return new StatementCacheStats(hits.sum(), misses.sum(), evictions.sum());
+        }
+    }
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Counters counters;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize, Counters counters) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.counters = counters;
+    }
+
+
+    PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        if (maxSize <= 0)
+            return physical.prepareStatement(sql);
+
+        Entry e = entries.get(sql);
+
+        if (e != null && !e.inUse) {
+            counters.hits.increment();
+            return e.checkout(owner);
+        }
+
+        counters.misses.increment();
+
+        if (e != null) {
+            // same SQL is already open on this connection (nested use), hand out an uncached one
+            return physical.prepareStatement(sql);
+        }
+
+        e = new Entry(physical.prepareStatement(sql));
+        entries.put(sql, e);
+        evictOverflow();
+
+        return e.checkout(owner);
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry e = it.next().getValue();
+            if (e.inUse) continue;
+
+            it.remove();
+            counters.evictions.increment();
+            e.closeQuietly();
+        }
+    }
+
+    void releaseAll() {
+        for (Entry e : entries.values()) {
+            if (e.inUse) e.checkin();
+        }
+    }
+
+    void closeAll() {
+        List<Entry> all = new ArrayList<>(entries.values());
+        entries.clear();
+        for (Entry e : all) e.closeQuietly();
+    }
+
+
+    private static final class Entry {
+
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean settingsChanged;
+        private Handle current;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        PreparedStatement checkout(Connection owner) {
+            inUse = true;
+            current = new Handle(owner);
+
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    current
+            );
+        }
+
+        void checkin() {
+            if (current != null) current.closed = true;
+            current = null;
+            inUse = false;
+
+            // a result set the caller left open would keep its server portal until the next execute
+            try {
+                ResultSet rs = statement.getResultSet();
+                if (rs != null) rs.close();
+            } catch (SQLException ignored) {
+
+            }
+
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                if (settingsChanged) {
+                    statement.setQueryTimeout(0);
+                    statement.setMaxRows(0);
+                    statement.setFetchSize(0);
+                    settingsChanged = false;
+                }
+            } catch (SQLException ignored) {
+
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+
+            }
+        }
+
+
+        private final class Handle implements InvocationHandler {
+
+            private final Connection owner;
+            private boolean closed;
+
+            Handle(Connection owner) {
+                this.owner = owner;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!closed) checkin();
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return closed;
+                    }
+                    case "getConnection" -> {
+                        return owner;
+                    }
+                    case "equals" -> {
+                        return proxy == args[0];
+                    }
+                    case "hashCode" -> {
+                        return System.identityHashCode(proxy);
+                    }
+                    case "setQueryTimeout", "setMaxRows", "setFetchSize" -> settingsChanged = true;
+                    default -> { }
+                }
+
+                if (closed)
+                    throw new SQLException("Statement is closed");
+
+                try {
+                    return method.invoke(statement, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            }
+        }
+    }
+}
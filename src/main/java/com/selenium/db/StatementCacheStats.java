@@ -0,0 +1,15 @@
+package com.selenium.db;
+
+public record StatementCacheStats(long hits, long misses, long evictions) {
+
+    public double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d evictions=%d hitRatio=%.2f",
+                hits, misses, evictions, hitRatio());
+    }
+}
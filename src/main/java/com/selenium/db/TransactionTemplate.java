@@ -0,0 +1,219 @@
+package com.selenium.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class TransactionTemplate {
+
+    @FunctionalInterface
+    public interface TxWork<T> {
+        T run(Connection con) throws SQLException;
+    }
+
+    public record TransactionStats(
+            String name,
+            long executions,
+            long commits,
+            long failures,
+            long retries,
+            long serializationFailures,
+            long deadlocks,
+            long timeouts,
+            double avgLatencyMs,
+            double maxLatencyMs
+    ) {}
+
+    private static final int DEFAULT_MAX_ATTEMPTS = Integer.getInteger("db.tx.maxAttempts", 3);
+    private static final long BACKOFF_BASE_MS = Long.getLong("db.tx.backoffMs", 10);
+    private static final long BACKOFF_MAX_MS = Long.getLong("db.tx.maxBackoffMs", 200);
+
+    private static final String SET_TIMEOUT_SQL = "/* TransactionTemplate.setTimeout */ SELECT set_config('statement_timeout', ?, true)";
+
+    private static final Map<String, Counters> METRICS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int isolation;
+    private final long timeoutMs;
+    private final int maxAttempts;
+    private final Counters counters;
+
+    public TransactionTemplate(String name) {
+        this(name, Connection.TRANSACTION_READ_COMMITTED, 0, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public TransactionTemplate(String name, int isolation, long timeoutMs) {
+        this(name, isolation, timeoutMs, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public TransactionTemplate(String name, int isolation, long timeoutMs, int maxAttempts) {
+        this.name = name;
+        this.isolation = isolation;
+        this.timeoutMs = timeoutMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.counters = METRICS.computeIfAbsent(name, n -> new Counters());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+
+    public <T> T execute(TxWork<T> work) throws SQLException {
+        long start = System.nanoTime();
+        long deadline = timeoutMs > 0 ? start + TimeUnit.MILLISECONDS.toNanos(timeoutMs) : Long.MAX_VALUE;
+
+        counters.executions.increment();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = runOnce(work, deadline);
+                counters.commits.increment();
+                counters.recordLatency(System.nanoTime() - start);
+                return result;
+
+            } catch (SQLException ex) {
+                String state = sqlState(ex);
+
+                if ("40001".equals(state)) counters.serializationFailures.increment();
+                else if ("40P01".equals(state)) counters.deadlocks.increment();
+                else if ("57014".equals(state) || ex instanceof SQLTimeoutException) counters.timeouts.increment();
+
+                boolean retryable = "40001".equals(state) || "40P01".equals(state);
+
+                if (!retryable || attempt >= maxAttempts || !backoff(attempt, deadline)) {
+                    counters.failures.increment();
+                    counters.recordLatency(System.nanoTime() - start);
+                    throw ex;
+                }
+
+                counters.retries.increment();
+            }
+        }
+    }
+
+    private <T> T runOnce(TxWork<T> work, long deadline) throws SQLException {
+        try (Connection con = DB.getConnection()) {
+
+            con.setAutoCommit(false);
+
+            try {
+                if (isolation != Connection.TRANSACTION_READ_COMMITTED)
+                    con.setTransactionIsolation(isolation);
+
+                if (deadline != Long.MAX_VALUE)
+                    applyTimeout(con, deadline);
+
+                T result = work.run(con);
+                con.commit();
+                return result;
+
+            } catch (SQLException ex) {
+                rollbackQuietly(con);
+                throw ex;
+            } catch (RuntimeException ex) {
+                rollbackQuietly(con);
+                throw new SQLException(ex.getMessage(), ex);
+            } finally {
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void applyTimeout(Connection con, long deadline) throws SQLException {
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMs <= 0)
+            throw new SQLTimeoutException("Transaction " + name + " timed out", "57014");
+
+        try (PreparedStatement ps = con.prepareStatement(SET_TIMEOUT_SQL)) {
+            ps.setString(1, remainingMs + "ms");
+            ps.execute();
+        }
+    }
+
+    private static boolean backoff(int attempt, long deadline) {
+        long cap = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(attempt - 1, 16));
+        long sleepMs = ThreadLocalRandom.current().nextLong(cap + 1);
+
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sleepMs) >= deadline)
+            return false;
+
+        try {
+            Thread.sleep(sleepMs);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void rollbackQuietly(Connection con) {
+        try {
+            con.rollback();
+        } catch (SQLException ignored) {
+
+        }
+    }
+
+    private static String sqlState(SQLException ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof SQLException se && se.getSQLState() != null)
+                return se.getSQLState();
+        }
+        return null;
+    }
+
+
+    public static List<TransactionStats> stats() {
+        List<TransactionStats> out = new ArrayList<>();
+        METRICS.forEach((name, c) -> out.add(c.snapshot(name)));
+        out.sort(Comparator.comparing(TransactionStats::name));
+        return out;
+    }
+
+
+    private static final class Counters {
+        final LongAdder executions = new LongAdder();
+        final LongAdder commits = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder serializationFailures = new LongAdder();
+        final LongAdder deadlocks = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder latencyNanos = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        void recordLatency(long nanos) {
+            completed.increment();
+            latencyNanos.add(nanos);
+            maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        TransactionStats snapshot(String name) {
+            long n = completed.sum();
+            return new TransactionStats(
+                    name,
+                    executions.sum(),
+                    commits.sum(),
+                    failures.sum(),
+                    retries.sum(),
+                    serializationFailures.sum(),
+                    deadlocks.sum(),
+                    timeouts.sum(),
+                    n == 0 ? 0 : latencyNanos.sum() / 1e6 / n,
+                    maxLatencyNanos.get() / 1e6
+            );
+        }
+    }
+}
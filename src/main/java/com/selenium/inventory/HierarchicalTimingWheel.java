@@ -0,0 +1,111 @@
+package com.selenium.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Hashed hierarchical timing wheel: O(1) insert, timers are cascaded to finer wheels as their
+// deadline approaches. Not thread-safe, callers synchronize.
+public final class HierarchicalTimingWheel<T> {
+
+    private record Timer<T>(T item, long deadlineTick) {}
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final int levels;
+    private final long[] spans;
+    private final List<List<Timer<T>>> buckets;
+    private final List<Timer<T>> overflow = new ArrayList<>();
+    private final List<Timer<T>> overdue = new ArrayList<>();
+
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levels, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.currentTick = startMs / tickMs;
+
+        spans = new long[levels + 1];
+        spans[0] = 1;
+        for (int l = 1; l <= levels; l++) spans[l] = spans[l - 1] * wheelSize;
+
+        buckets = new ArrayList<>(levels * wheelSize);
+        for (int i = 0; i < levels * wheelSize; i++) buckets.add(new ArrayList<>());
+    }
+
+    public long tickMs() {
+        return tickMs;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void schedule(T item, long deadlineMs) {
+        long deadlineTick = Math.floorDiv(deadlineMs + tickMs - 1, tickMs);
+        place(new Timer<>(item, deadlineTick));
+        size++;
+    }
+
+    // moves the wheel up to nowMs and hands every timer that came due to the consumer
+    public void advance(long nowMs, Consumer<T> due) {
+        for (Timer<T> t : drain(overdue)) expire(t, due);
+
+        long target = nowMs / tickMs;
+
+        while (currentTick < target) {
+            currentTick++;
+
+            for (int l = levels - 1; l >= 1; l--) {
+                if (currentTick % spans[l] != 0) continue;
+
+                int slot = (int) ((currentTick / spans[l]) % wheelSize);
+                for (Timer<T> t : drain(bucket(l, slot))) place(t);
+
+                if (l == levels - 1)
+                    for (Timer<T> t : drain(overflow)) place(t);
+            }
+
+            int slot = (int) (currentTick % wheelSize);
+            for (Timer<T> t : drain(bucket(0, slot))) expire(t, due);
+            for (Timer<T> t : drain(overdue)) expire(t, due);
+        }
+    }
+
+    private void place(Timer<T> t) {
+        long delta = t.deadlineTick() - currentTick;
+
+        if (delta <= 0) {
+            overdue.add(t);
+            return;
+        }
+
+        for (int l = 0; l < levels; l++) {
+            if (delta < spans[l + 1]) {
+                int slot = (int) ((t.deadlineTick() / spans[l]) % wheelSize);
+                bucket(l, slot).add(t);
+                return;
+            }
+        }
+
+        overflow.add(t);
+    }
+
+    private void expire(Timer<T> t, Consumer<T> due) {
+        size--;
+        due.accept(t.item());
+    }
+
+    private List<Timer<T>> bucket(int level, int slot) {
+        return buckets.get(level * wheelSize + slot);
+    }
+
+    private static <T> List<T> drain(List<T> list) {
+        if (list.isEmpty()) return List.of();
+        List<T> out = new ArrayList<>(list);
+        list.clear();
+        return out;
+    }
+}
@@ -0,0 +1,317 @@
+package com.selenium.inventory;
+
+import com.selenium.dao.SeatAbuseLedgerDAO;
+import com.selenium.dao.SecurityLogDAO;
+import com.selenium.db.DB;
+import com.selenium.db.LatencyHistogram;
+import com.selenium.db.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class HoldExpiryReaper {
+
+    public record ReaperStats(
+            int pending,
+            long scheduled,
+            long released,
+            long batches,
+            long rescheduled,
+            long failures,
+            double lagP50Ms,
+            double lagP99Ms,
+            double lagMaxMs
+    ) {}
+
+    private record SeatKey(long eventId, long seatId) {}
+
+    private static final long TICK_MS = Long.getLong("seat.reaper.tickMs", 100);
+    private static final long RESCAN_MS = Long.getLong("seat.reaper.rescanMs", 60_000);
+    private static final long RETRY_MS = Long.getLong("seat.reaper.retryMs", 1_000);
+    private static final long PRUNE_MS = Long.getLong("seat.transitions.pruneMs", 10 * 60_000L);
+    private static final int MAX_BATCH = Integer.getInteger("seat.reaper.maxBatch", 500);
+
+    private static final String SCAN_SQL = """
+            SELECT event_id, seat_id, hold_expires_at
+            FROM event_seats
+            WHERE state = 'HELD'
+              AND hold_expires_at IS NOT NULL
+            """;
+
+    private static final String RELEASE_SQL = """
+            WITH expired AS (
+                SELECT event_id, seat_id, held_by_user_id
+                FROM event_seats
+                WHERE event_id = ?
+                  AND seat_id = ANY(?)
+                  AND state = 'HELD'
+                  AND hold_expires_at < CURRENT_TIMESTAMP
+                FOR UPDATE
+            )
+            UPDATE event_seats es
+            SET state = 'AVAILABLE',
+                held_by_user_id = NULL,
+                hold_expires_at = NULL
+            FROM expired x
+            WHERE es.event_id = x.event_id
+              AND es.seat_id = x.seat_id
+            RETURNING es.seat_id, x.held_by_user_id, es.version
+            """;
+
+    private static final String STILL_HELD_SQL = """
+            SELECT seat_id, hold_expires_at
+            FROM event_seats
+            WHERE event_id = ?
+              AND seat_id = ANY(?)
+              AND state = 'HELD'
+              AND hold_expires_at IS NOT NULL
+            """;
+
+    private static final TransactionTemplate RELEASE_TX = new TransactionTemplate(
+            "HoldExpiryReaper.release", Connection.TRANSACTION_READ_COMMITTED, 10_000);
+
+    private static final HoldExpiryReaper INSTANCE = new HoldExpiryReaper();
+
+    private final SecurityLogDAO securityLogDAO = new SecurityLogDAO();
+    private final SeatAbuseLedgerDAO seatAbuseLedgerDAO = new SeatAbuseLedgerDAO();
+
+    private final HierarchicalTimingWheel<SeatKey> wheel =
+            new HierarchicalTimingWheel<>(TICK_MS, 64, 4, System.currentTimeMillis());
+
+    // latest known expiry per held seat; a wheel timer whose deadline no longer matches is stale
+    private final Map<SeatKey, Long> deadlines = new HashMap<>();
+
+    private final LatencyHistogram lag = new LatencyHistogram();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rescheduled = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Thread worker;
+
+    private HoldExpiryReaper() {}
+
+    public static HoldExpiryReaper get() {
+        return INSTANCE;
+    }
+
+
+    public synchronized void start() {
+        if (running) return;
+
+        running = true;
+        worker = new Thread(this::run, "seat-hold-reaper");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+
+        Thread t = worker;
+        worker = null;
+        if (t != null) t.interrupt();
+    }
+
+
+    public void schedule(long eventId, long seatId, Timestamp expiresAt) {
+        if (expiresAt != null) schedule(new SeatKey(eventId, seatId), expiresAt.getTime());
+    }
+
+    private void schedule(SeatKey key, long expiresAtMs) {
+        synchronized (wheel) {
+            Long known = deadlines.put(key, expiresAtMs);
+            if (known != null && known == expiresAtMs) return;
+
+            wheel.schedule(key, expiresAtMs);
+        }
+        scheduled.increment();
+    }
+
+
+    private void run() {
+        long nextRescan = 0;
+        long nextPrune = 0;
+
+        while (running) {
+            long now = System.currentTimeMillis();
+
+            if (now >= nextPrune) {
+                try {
+                    SeatTransitionLog.prune();
+                    nextPrune = now + PRUNE_MS;
+                } catch (SQLException ex) {
+                    failures.increment();
+                    nextPrune = now + RETRY_MS;
+                }
+            }
+
+            if (now >= nextRescan) {
+                try {
+                    rescan();
+                    nextRescan = now + RESCAN_MS;
+                } catch (SQLException ex) {
+                    failures.increment();
+                    nextRescan = now + RETRY_MS;
+                }
+            }
+
+            Map<Long, List<SeatKey>> dueByEvent = new LinkedHashMap<>();
+            Map<SeatKey, Long> dueAt = new HashMap<>();
+
+            synchronized (wheel) {
+                wheel.advance(now, key -> {
+                    Long deadline = deadlines.get(key);
+                    if (deadline == null || deadline > now) return;
+
+                    deadlines.remove(key);
+                    dueAt.put(key, deadline);
+                    dueByEvent.computeIfAbsent(key.eventId(), k -> new ArrayList<>()).add(key);
+                });
+            }
+
+            for (Map.Entry<Long, List<SeatKey>> e : dueByEvent.entrySet()) {
+                List<SeatKey> seats = e.getValue();
+                for (int from = 0; from < seats.size(); from += MAX_BATCH) {
+                    List<SeatKey> batch = seats.subList(from, Math.min(seats.size(), from + MAX_BATCH));
+                    release(e.getKey(), batch, dueAt);
+                }
+            }
+
+            try {
+                Thread.sleep(TICK_MS);
+            } catch (InterruptedException ex) {
+                break;
+            }
+        }
+    }
+
+    private void rescan() throws SQLException {
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(SCAN_SQL);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                schedule(new SeatKey(rs.getLong("event_id"), rs.getLong("seat_id")),
+                        rs.getTimestamp("hold_expires_at").getTime());
+            }
+        }
+    }
+
+    private void release(long eventId, List<SeatKey> seats, Map<SeatKey, Long> dueAt) {
+        Long[] seatIds = new Long[seats.size()];
+        for (int i = 0; i < seatIds.length; i++) seatIds[i] = seats.get(i).seatId();
+
+        List<SeatChangeFeed.SeatChange> changes = new ArrayList<>();
+        Map<Long, Long> stillHeld = new HashMap<>();
+
+        try {
+            RELEASE_TX.execute(con -> {
+                changes.clear();
+                stillHeld.clear();
+
+                Array ids = con.createArrayOf("bigint", seatIds);
+                List<SecurityLogDAO.LogEntry> logs = new ArrayList<>();
+                List<Long> expiredUsers = new ArrayList<>();
+                List<Long> expiredSeats = new ArrayList<>();
+
+                try (PreparedStatement ps = con.prepareStatement(RELEASE_SQL)) {
+                    ps.setLong(1, eventId);
+                    ps.setArray(2, ids);
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            long seatId = rs.getLong("seat_id");
+                            changes.add(new SeatChangeFeed.SeatChange(eventId, seatId, "AVAILABLE", rs.getLong("version")));
+
+                            long userId = rs.getLong("held_by_user_id");
+                            if (!rs.wasNull()) {
+                                logs.add(new SecurityLogDAO.LogEntry("INFO", "BOOK_EXPIRED_SEAT_" + seatId,
+                                        userId, null, "Seat expired seatId=" + seatId));
+                                expiredUsers.add(userId);
+                                expiredSeats.add(seatId);
+                            }
+                        }
+                    }
+                }
+
+                securityLogDAO.logBatch(con, logs);
+                seatAbuseLedgerDAO.recordExpiries(con, expiredUsers, expiredSeats);
+
+                if (changes.size() < seatIds.length) {
+                    try (PreparedStatement ps = con.prepareStatement(STILL_HELD_SQL)) {
+                        ps.setLong(1, eventId);
+                        ps.setArray(2, ids);
+
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next())
+                                stillHeld.put(rs.getLong("seat_id"), rs.getTimestamp("hold_expires_at").getTime());
+                        }
+                    }
+                }
+
+                return null;
+            });
+
+        } catch (SQLException ex) {
+            failures.increment();
+            long retryAt = System.currentTimeMillis() + RETRY_MS;
+            for (SeatKey k : seats) schedule(k, retryAt);
+            return;
+        }
+
+        batches.increment();
+        released.add(changes.size());
+
+        long now = System.currentTimeMillis();
+        for (SeatChangeFeed.SeatChange c : changes) {
+            Long deadline = dueAt.get(new SeatKey(eventId, c.seatId()));
+            if (deadline != null) lag.record(TimeUnit.MILLISECONDS.toNanos(Math.max(0, now - deadline)));
+        }
+
+        if (SeatHoldEngine.ENABLED)
+            for (SeatChangeFeed.SeatChange c : changes) SeatHoldEngine.get().apply(c);
+
+        if (SeatInventoryCache.ENABLED)
+            for (SeatChangeFeed.SeatChange c : changes) SeatInventoryCache.get().apply(c, 0, null);
+
+        // renewed holds, or a database clock still behind ours
+        for (Map.Entry<Long, Long> e : stillHeld.entrySet()) {
+            rescheduled.increment();
+            schedule(new SeatKey(eventId, e.getKey()), Math.max(e.getValue(), now + RETRY_MS));
+        }
+    }
+
+
+    public ReaperStats getStats() {
+        int pending;
+        synchronized (wheel) {
+            pending = deadlines.size();
+        }
+
+        return new ReaperStats(
+                pending,
+                scheduled.sum(),
+                released.sum(),
+                batches.sum(),
+                rescheduled.sum(),
+                failures.sum(),
+                lag.percentileNanos(50) / 1e6,
+                lag.percentileNanos(99) / 1e6,
+                lag.maxNanos() / 1e6
+        );
+    }
+}
@@ -0,0 +1,208 @@
+package com.selenium.inventory;
+
+import com.selenium.db.DB;
+import com.selenium.db.LatencyHistogram;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Seat holds are leases: they start with seat.hold.ttlMs and are extended while the user is still busy
+// with the booking (payment dialog open). Renewals are coalesced per booking within this process only;
+// every client process writes its own UPDATE, so the database sees one per open booking per heartbeat.
+public final class HoldLeaseManager {
+
+    public record LeaseStats(
+            long granted,
+            long requested,
+            long coalesced,
+            long flushes,
+            long renewedSeats,
+            long refused,
+            double flushP50Ms,
+            double flushP99Ms
+    ) {}
+
+    public static final long TTL_MS = Long.getLong("seat.hold.ttlMs", 120_000);
+
+    private static final long MAX_LEASE_MS = Long.getLong("seat.hold.maxLeaseMs", 900_000);
+    // one flush per heartbeat: a renewal waits at most that long, and a lease still survives one failed flush
+    private static final long FLUSH_MS = Long.getLong("seat.hold.renewFlushMs", heartbeatMs());
+
+    // extends every still-held seat of the booking, never past created_at + maxLeaseMs and never shortens a hold
+    private static final String RENEW_SQL = """
+            UPDATE event_seats es
+            SET hold_expires_at = GREATEST(es.hold_expires_at,
+                    LEAST(?::timestamp, b.created_at + ? * INTERVAL '1 millisecond'))
+            FROM unnest(?::bigint[], ?::bigint[]) AS r(booking_id, user_id)
+            JOIN bookings b
+              ON b.booking_id = r.booking_id
+             AND b.user_id = r.user_id
+             AND b.status = 'PENDING'
+            JOIN booking_items bi ON bi.booking_id = b.booking_id
+            WHERE es.event_id = bi.event_id
+              AND es.seat_id = bi.seat_id
+              AND es.state = 'HELD'
+              AND es.held_by_user_id = r.user_id
+              AND es.hold_expires_at > CURRENT_TIMESTAMP
+            RETURNING es.event_id, es.seat_id, es.held_by_user_id, es.hold_expires_at, r.booking_id
+            """;
+
+    private record Renewed(long eventId, long seatId, long holder, Timestamp until) {}
+
+    private static final HoldLeaseManager INSTANCE = new HoldLeaseManager();
+
+    // booking id -> user id, one entry however often the booking was renewed since the last flush
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder renewedSeats = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Thread flusher;
+
+    private HoldLeaseManager() {}
+
+    public static HoldLeaseManager get() {
+        return INSTANCE;
+    }
+
+
+    public synchronized void start() {
+        if (running) return;
+
+        running = true;
+        flusher = new Thread(this::run, "seat-hold-lease-renewer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+
+        Thread t = flusher;
+        flusher = null;
+        if (t != null) t.interrupt();
+    }
+
+
+    // expiry for a new hold
+    public Timestamp newLease() {
+        granted.increment();
+        return new Timestamp(System.currentTimeMillis() + TTL_MS);
+    }
+
+    // how often an active client should call renew to keep its hold
+    public static long heartbeatMs() {
+        return Math.max(1_000, TTL_MS / 3);
+    }
+
+    public void renew(long userId, long bookingId) {
+        requested.increment();
+        if (pending.put(bookingId, userId) != null) coalesced.increment();
+    }
+
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(FLUSH_MS);
+            } catch (InterruptedException ex) {
+                break;
+            }
+
+            try {
+                flush();
+            } catch (SQLException ex) {
+                System.out.println("⚠ Hold lease renewal failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (pending.isEmpty()) return;
+
+        List<Long> bookingIds = new ArrayList<>();
+        List<Long> userIds = new ArrayList<>();
+
+        for (Long bookingId : new ArrayList<>(pending.keySet())) {
+            Long userId = pending.remove(bookingId);
+            if (userId == null) continue;
+            bookingIds.add(bookingId);
+            userIds.add(userId);
+        }
+        if (bookingIds.isEmpty()) return;
+
+        long start = System.nanoTime();
+        Timestamp expiresAt = new Timestamp(System.currentTimeMillis() + TTL_MS);
+
+        List<Renewed> renewed = new ArrayList<>();
+        Set<Long> renewedBookings = new HashSet<>();
+
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(RENEW_SQL)) {
+
+            ps.setTimestamp(1, expiresAt);
+            ps.setLong(2, MAX_LEASE_MS);
+            ps.setArray(3, con.createArrayOf("bigint", bookingIds.toArray(new Long[0])));
+            ps.setArray(4, con.createArrayOf("bigint", userIds.toArray(new Long[0])));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    renewed.add(new Renewed(
+                            rs.getLong("event_id"),
+                            rs.getLong("seat_id"),
+                            rs.getLong("held_by_user_id"),
+                            rs.getTimestamp("hold_expires_at")
+                    ));
+                    renewedBookings.add(rs.getLong("booking_id"));
+                }
+            }
+
+        } catch (SQLException ex) {
+            // try again next interval, unless the client renewed in the meantime anyway
+            for (int i = 0; i < bookingIds.size(); i++) pending.putIfAbsent(bookingIds.get(i), userIds.get(i));
+            throw ex;
+        }
+
+        flushes.increment();
+        flushLatency.record(System.nanoTime() - start);
+        renewedSeats.add(renewed.size());
+        refused.add(bookingIds.size() - renewedBookings.size());
+
+        for (Renewed r : renewed) {
+            HoldExpiryReaper.get().schedule(r.eventId(), r.seatId(), r.until());
+
+            if (SeatInventoryCache.ENABLED)
+                SeatInventoryCache.get().extendHold(r.eventId(), r.seatId(), r.holder(), r.until());
+        }
+    }
+
+
+    public LeaseStats getStats() {
+        return new LeaseStats(
+                granted.sum(),
+                requested.sum(),
+                coalesced.sum(),
+                flushes.sum(),
+                renewedSeats.sum(),
+                refused.sum(),
+                flushLatency.percentileNanos(50) / 1e6,
+                flushLatency.percentileNanos(99) / 1e6
+        );
+    }
+}
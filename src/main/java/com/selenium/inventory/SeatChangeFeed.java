@@ -0,0 +1,223 @@
+package com.selenium.inventory;
+
+import com.selenium.db.DB;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class SeatChangeFeed {
+
+    public record SeatChange(long eventId, long seatId, String state, long version) {
+
+        static SeatChange parse(String payload) {
+            if (payload == null) return null;
+
+            String[] parts = payload.split(",");
+            if (parts.length != 4) return null;
+
+            try {
+                return new SeatChange(
+                        Long.parseLong(parts[0]),
+                        Long.parseLong(parts[1]),
+                        parts[2],
+                        Long.parseLong(parts[3])
+                );
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+    }
+
+    public interface Listener {
+        void onChange(SeatChange change);
+
+        // called after (re)connecting, notifications sent while disconnected are lost
+        default void onResync() {}
+    }
+
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static final String CHANNEL = "seat_changes";
+
+    private static final int POLL_MS = Integer.getInteger("seat.feed.pollMs", 500);
+    private static final long MIN_BACKOFF_MS = 250;
+    private static final long MAX_BACKOFF_MS = Long.getLong("seat.feed.maxBackoffMs", 10_000);
+
+    private static final SeatChangeFeed INSTANCE = new SeatChangeFeed();
+
+    private final Map<Long, Set<Listener>> byEvent = new ConcurrentHashMap<>();
+    private final Set<Listener> global = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Thread worker;
+    private volatile Connection connection;
+    private volatile boolean listening;
+
+    private SeatChangeFeed() {}
+
+    public static SeatChangeFeed get() {
+        return INSTANCE;
+    }
+
+
+    public synchronized void start() {
+        if (running) return;
+
+        running = true;
+        worker = new Thread(this::run, "seat-change-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+
+        Thread t = worker;
+        worker = null;
+        if (t != null) t.interrupt();
+
+        closeQuietly(connection);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // listening, and listeners were resynced after the last reconnect; false while reconnecting
+    public boolean isConnected() {
+        return listening;
+    }
+
+
+    public Subscription subscribe(long eventId, Listener listener) {
+        byEvent.computeIfAbsent(eventId, k -> ConcurrentHashMap.newKeySet()).add(listener);
+
+        return () -> byEvent.computeIfPresent(eventId, (k, set) -> {
+            set.remove(listener);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public Subscription subscribeAll(Listener listener) {
+        global.add(listener);
+        return () -> global.remove(listener);
+    }
+
+    public void publish(SeatChange change) {
+        for (Listener l : global) deliver(l, change);
+
+        Set<Listener> listeners = byEvent.get(change.eventId());
+        if (listeners == null) return;
+
+        for (Listener l : listeners) deliver(l, change);
+    }
+
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MS;
+
+        while (running) {
+            try (Connection con = DB.openDedicatedConnection()) {
+                connection = con;
+
+                try (Statement st = con.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+
+                backoff = MIN_BACKOFF_MS;
+                resyncAll();
+                listening = true;
+
+                PGConnection pg = con.unwrap(PGConnection.class);
+
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_MS);
+                    if (notifications == null) continue;
+
+                    for (PGNotification n : notifications) {
+                        received.increment();
+
+                        SeatChange change = SeatChange.parse(n.getParameter());
+                        if (change != null) publish(change);
+                    }
+                }
+
+            } catch (SQLException ex) {
+                if (!running) break;
+
+                reconnects.increment();
+                System.out.println("⚠ Seat change feed disconnected: " + ex.getMessage());
+
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+                backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+
+            } finally {
+                listening = false;
+                connection = null;
+            }
+        }
+    }
+
+    private void resyncAll() {
+        for (Listener l : global) resync(l);
+        for (Set<Listener> set : byEvent.values())
+            for (Listener l : set) resync(l);
+    }
+
+    private void deliver(Listener l, SeatChange change) {
+        try {
+            l.onChange(change);
+            dispatched.increment();
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static void resync(Listener l) {
+        try {
+            l.onResync();
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static void closeQuietly(Connection con) {
+        if (con == null) return;
+        try {
+            con.close();
+        } catch (SQLException ignored) {
+
+        }
+    }
+
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+}
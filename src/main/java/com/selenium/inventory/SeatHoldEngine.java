@@ -0,0 +1,535 @@
+package com.selenium.inventory;
+
+import com.selenium.dao.BookingDAO;
+import com.selenium.db.DB;
+import com.selenium.db.LatencyHistogram;
+import com.selenium.db.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Decides seat holds with a CAS on an in-memory slot per seat; only the winner of a seat reaches
+// PostgreSQL, through a single writer that persists holds in the order they were won.
+// Correct only while this node is the one taking holds for an event; event_seats stays the arbiter,
+// a hold the database refuses is reported as not available.
+public final class SeatHoldEngine {
+
+    public record Hold(long bookingId, long version, String failure) {
+        public boolean succeeded() { return failure == null; }
+    }
+
+    public record EngineStats(
+            int events,
+            int queued,
+            long attempts,
+            long rejectedInMemory,
+            long persisted,
+            long refusedByDatabase,
+            long batches,
+            double flushP50Ms,
+            double flushP99Ms
+    ) {}
+
+    public static final boolean ENABLED = Boolean.getBoolean("seat.engine.enabled");
+
+    private static final int MAX_BATCH = Integer.getInteger("seat.engine.maxBatch", 256);
+    private static final long FLUSH_MS = Long.getLong("seat.engine.flushMs", 5);
+    private static final int SEAT_ABUSE_LIMIT = 3;
+
+    // slot = holder user id << 2 | state
+    private static final int AVAILABLE = 0;
+    private static final int HELD = 1;
+    private static final int TAKEN = 2;
+    private static final int PERSISTING = 3;
+
+    private static final String STATE_SQL = """
+            SELECT seat_id, state, held_by_user_id, version
+            FROM event_seats
+            WHERE event_id = ?
+            """;
+
+    private static final String ABUSE_SQL = """
+            SELECT r.ord
+            FROM unnest(?::bigint[], ?::bigint[]) WITH ORDINALITY AS r(user_id, seat_id, ord)
+            JOIN seat_abuse_ledger l
+              ON l.user_id = r.user_id
+             AND l.seat_id = r.seat_id
+            WHERE (
+                SELECT COUNT(*)
+                FROM unnest(l.expired_at) AS e(at)
+                WHERE e.at >= now() - INTERVAL '525600 minutes'
+            ) >= ?
+            """;
+
+    private static final String HOLD_SQL = """
+            UPDATE event_seats es
+            SET state = 'HELD',
+                held_by_user_id = r.user_id,
+                hold_expires_at = r.expires_at
+            FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::timestamp[]) AS r(event_id, seat_id, user_id, expires_at)
+            WHERE es.event_id = r.event_id
+              AND es.seat_id = r.seat_id
+              AND es.state = 'AVAILABLE'
+            RETURNING es.event_id, es.seat_id, es.version
+            """;
+
+    private static final String BOOKING_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('bookings', 'booking_id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT_BOOKING_SQL =
+            "INSERT INTO bookings (booking_id, user_id, event_id, status) VALUES (?, ?, ?, 'PENDING')";
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO booking_items (booking_id, seat_id, price, event_id) VALUES (?, ?, ?, ?)";
+
+    private static final TransactionTemplate PERSIST_TX = new TransactionTemplate(
+            "SeatHoldEngine.persist", Connection.TRANSACTION_READ_COMMITTED, 10_000);
+
+    private static final SeatHoldEngine INSTANCE = new SeatHoldEngine();
+
+    private record Request(EventSlots slots, int index, long eventId, long seatId, long userId,
+                           BigDecimal price, Timestamp expiresAt, CompletableFuture<Hold> result) {}
+
+    private final Map<Long, EventSlots> events = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    private SeatHoldEngine() {
+        SeatChangeFeed.get().subscribeAll(new SeatChangeFeed.Listener() {
+            @Override
+            public void onChange(SeatChangeFeed.SeatChange change) {
+                apply(change);
+            }
+
+            @Override
+            public void onResync() {
+                events.clear();
+            }
+        });
+    }
+
+    public static SeatHoldEngine get() {
+        return INSTANCE;
+    }
+
+
+    public synchronized void start() {
+        if (running) return;
+
+        running = true;
+        writer = new Thread(this::run, "seat-hold-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // holds already won are still written before the writer exits
+    public synchronized void stop() {
+        running = false;
+
+        Thread t = writer;
+        writer = null;
+        if (t == null) return;
+
+        try {
+            t.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    public CompletableFuture<Hold> hold(long eventId, long seatId, long userId, BigDecimal price, Timestamp expiresAt) {
+        attempts.increment();
+
+        if (!running)
+            return CompletableFuture.failedFuture(new SQLException("Seat hold engine is not running."));
+
+        EventSlots slots;
+        try {
+            slots = slots(eventId);
+        } catch (SQLException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        Integer index = slots.positions.get(seatId);
+        if (index == null || !slots.claim(index, userId)) {
+            rejected.increment();
+            return CompletableFuture.completedFuture(new Hold(0, 0, BookingDAO.FAIL_NOT_AVAILABLE));
+        }
+
+        CompletableFuture<Hold> result = new CompletableFuture<>();
+        Request request = new Request(slots, index, eventId, seatId, userId, price, expiresAt, result);
+        queue.add(request);
+
+        // stop() may have let the writer drain and exit between the check above and the add
+        if (!running && queue.remove(request)) {
+            slots.release(index, userId);
+            result.completeExceptionally(new SQLException("Seat hold engine is not running."));
+        }
+        return result;
+    }
+
+    public void apply(SeatChangeFeed.SeatChange change) {
+        EventSlots slots = events.get(change.eventId());
+        if (slots == null) return;
+
+        Integer i = slots.positions.get(change.seatId());
+        if (i != null) slots.apply(i, code(change.state()), 0, change.version());
+    }
+
+    public void evict(long eventId) {
+        events.remove(eventId);
+    }
+
+
+    private EventSlots slots(long eventId) throws SQLException {
+        EventSlots slots = events.get(eventId);
+        if (slots != null) return slots;
+
+        synchronized (events) {
+            slots = events.get(eventId);
+            if (slots == null) {
+                slots = load(eventId);
+                events.put(eventId, slots);
+            }
+            return slots;
+        }
+    }
+
+    private static EventSlots load(long eventId) throws SQLException {
+        List<long[]> rows = new ArrayList<>();
+
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(STATE_SQL)) {
+
+            ps.setLong(1, eventId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new long[]{
+                            rs.getLong("seat_id"),
+                            code(rs.getString("state")),
+                            rs.getLong("held_by_user_id"),
+                            rs.getLong("version")
+                    });
+                }
+            }
+        }
+
+        EventSlots slots = new EventSlots(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            long[] r = rows.get(i);
+            slots.positions.put(r[0], i);
+            slots.slots.set(i, pack(r[2], (int) r[1]));
+            slots.versions.set(i, r[3]);
+        }
+        return slots;
+    }
+
+
+    private void run() {
+        List<Request> batch = new ArrayList<>(MAX_BATCH);
+
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Request first = queue.poll(FLUSH_MS, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                } catch (InterruptedException ex) {
+                    if (!running) queue.drainTo(batch);
+                }
+
+                if (!batch.isEmpty()) {
+                    persist(batch);
+                    batch.clear();
+                }
+            }
+
+        } catch (RuntimeException ex) {
+            System.out.println("⚠ Seat hold writer stopped: " + ex);
+            running = false;
+
+        } finally {
+            // nothing is left waiting on a writer that is gone
+            queue.drainTo(batch);
+            SQLException gone = new SQLException("Seat hold engine is not running.");
+            for (Request r : batch) {
+                r.slots().release(r.index(), r.userId());
+                r.result().completeExceptionally(gone);
+            }
+        }
+    }
+
+    private void persist(List<Request> batch) {
+        // a request its caller stopped waiting for is dropped before it reaches the database
+        batch.removeIf(r -> {
+            if (!r.result().isCancelled()) return false;
+            r.slots().release(r.index(), r.userId());
+            return true;
+        });
+        if (batch.isEmpty()) return;
+
+        long start = System.nanoTime();
+        int n = batch.size();
+
+        Long[] eventIds = new Long[n];
+        Long[] seatIds = new Long[n];
+        Long[] userIds = new Long[n];
+        Timestamp[] expires = new Timestamp[n];
+
+        for (int i = 0; i < n; i++) {
+            Request r = batch.get(i);
+            eventIds[i] = r.eventId();
+            seatIds[i] = r.seatId();
+            userIds[i] = r.userId();
+            expires[i] = r.expiresAt();
+        }
+
+        Set<Integer> blocked = new HashSet<>();
+        Map<Integer, Long> versions = new HashMap<>();
+        Map<Integer, Long> bookingIds = new HashMap<>();
+
+        try {
+            PERSIST_TX.execute(con -> {
+                blocked.clear();
+                versions.clear();
+                bookingIds.clear();
+
+                try (PreparedStatement ps = con.prepareStatement(ABUSE_SQL)) {
+                    ps.setArray(1, con.createArrayOf("bigint", userIds));
+                    ps.setArray(2, con.createArrayOf("bigint", seatIds));
+                    ps.setInt(3, SEAT_ABUSE_LIMIT);
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) blocked.add(rs.getInt(1) - 1);
+                    }
+                }
+
+                // after a resync the same seat can be claimed twice; the first claim is the one tried
+                Map<String, Integer> byKey = new HashMap<>();
+                List<Integer> allowed = new ArrayList<>(n);
+
+                for (int i = 0; i < n; i++) {
+                    if (!blocked.contains(i) && byKey.putIfAbsent(eventIds[i] + ":" + seatIds[i], i) == null)
+                        allowed.add(i);
+                }
+                if (allowed.isEmpty()) return null;
+
+                Long[] ev = new Long[allowed.size()];
+                Long[] se = new Long[allowed.size()];
+                Long[] us = new Long[allowed.size()];
+                Timestamp[] ex = new Timestamp[allowed.size()];
+
+                for (int k = 0; k < allowed.size(); k++) {
+                    int i = allowed.get(k);
+                    ev[k] = eventIds[i];
+                    se[k] = seatIds[i];
+                    us[k] = userIds[i];
+                    ex[k] = expires[i];
+                }
+
+                try (PreparedStatement ps = con.prepareStatement(HOLD_SQL)) {
+                    ps.setArray(1, con.createArrayOf("bigint", ev));
+                    ps.setArray(2, con.createArrayOf("bigint", se));
+                    ps.setArray(3, con.createArrayOf("bigint", us));
+                    ps.setArray(4, con.createArrayOf("timestamp", ex));
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Integer i = byKey.get(rs.getLong("event_id") + ":" + rs.getLong("seat_id"));
+                            if (i != null) versions.put(i, rs.getLong("version"));
+                        }
+                    }
+                }
+
+                if (versions.isEmpty()) return null;
+
+                // ids up front, so headers and items go out as two batched inserts in request order
+                List<Integer> won = new ArrayList<>(versions.keySet());
+                won.sort(null);
+
+                try (PreparedStatement ps = con.prepareStatement(BOOKING_IDS_SQL)) {
+                    ps.setInt(1, won.size());
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        for (int i : won) {
+                            rs.next();
+                            bookingIds.put(i, rs.getLong(1));
+                        }
+                    }
+                }
+
+                try (PreparedStatement ps = con.prepareStatement(INSERT_BOOKING_SQL)) {
+                    for (int i : won) {
+                        ps.setLong(1, bookingIds.get(i));
+                        ps.setLong(2, userIds[i]);
+                        ps.setLong(3, eventIds[i]);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+
+                try (PreparedStatement ps = con.prepareStatement(INSERT_ITEM_SQL)) {
+                    for (int i : won) {
+                        ps.setLong(1, bookingIds.get(i));
+                        ps.setLong(2, seatIds[i]);
+                        ps.setBigDecimal(3, batch.get(i).price());
+                        ps.setLong(4, eventIds[i]);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+
+                return null;
+            });
+
+        } catch (SQLException ex) {
+            // nothing was written; the seats are as free as they were before the claim
+            for (Request r : batch) {
+                r.slots().release(r.index(), r.userId());
+                r.result().completeExceptionally(ex);
+            }
+            return;
+        }
+
+        batches.increment();
+        flushLatency.record(System.nanoTime() - start);
+
+        for (int i = 0; i < n; i++) {
+            Request r = batch.get(i);
+
+            if (blocked.contains(i)) {
+                r.slots().release(r.index(), r.userId());
+                r.result().complete(new Hold(0, 0, BookingDAO.FAIL_BLOCKED));
+
+            } else if (versions.containsKey(i)) {
+                long version = versions.get(i);
+                r.slots().persisted(r.index(), r.userId(), version);
+                persisted.increment();
+
+                if (!r.result().complete(new Hold(bookingIds.get(i), version, null)))
+                    undo(r, bookingIds.get(i));
+
+            } else {
+                // taken through another path; the feed will bring the real state and version
+                r.slots().refused(r.index(), r.userId());
+                refused.increment();
+                r.result().complete(new Hold(0, 0, BookingDAO.FAIL_NOT_AVAILABLE));
+            }
+        }
+    }
+
+
+    // The caller gave up while its hold was being written, so nobody will pay for or release it.
+    // Cancelled like a user cancel rather than left to expire, which would count against the user
+    // in seat_abuse_ledger for a hold they were never shown.
+    private static void undo(Request r, long bookingId) {
+        try {
+            new BookingDAO().cancelBooking(r.userId(), bookingId);
+        } catch (SQLException ex) {
+            System.out.println("⚠ Abandoned hold not cancelled, bookingId=" + bookingId + ": " + ex.getMessage());
+        }
+    }
+
+
+    public EngineStats getStats() {
+        return new EngineStats(
+                events.size(),
+                queue.size(),
+                attempts.sum(),
+                rejected.sum(),
+                persisted.sum(),
+                refused.sum(),
+                batches.sum(),
+                flushLatency.percentileNanos(50) / 1e6,
+                flushLatency.percentileNanos(99) / 1e6
+        );
+    }
+
+
+    private static int code(String state) {
+        if ("AVAILABLE".equals(state)) return AVAILABLE;
+        if ("HELD".equals(state)) return HELD;
+        return TAKEN;
+    }
+
+    private static long pack(long userId, int state) {
+        return userId << 2 | state;
+    }
+
+    private static int state(long slot) {
+        return (int) (slot & 3);
+    }
+
+    private static final class EventSlots {
+        final Map<Long, Integer> positions;
+        final AtomicLongArray slots;
+        final AtomicLongArray versions;
+
+        EventSlots(int n) {
+            positions = new HashMap<>(n * 2);
+            slots = new AtomicLongArray(n);
+            versions = new AtomicLongArray(n);
+        }
+
+        // the one place a hold is decided
+        boolean claim(int i, long userId) {
+            return slots.compareAndSet(i, pack(0, AVAILABLE), pack(userId, PERSISTING));
+        }
+
+        void release(int i, long userId) {
+            slots.compareAndSet(i, pack(userId, PERSISTING), pack(0, AVAILABLE));
+        }
+
+        void persisted(int i, long userId, long version) {
+            slots.set(i, pack(userId, HELD));
+            versions.accumulateAndGet(i, version, Math::max);
+        }
+
+        // the version is left alone so the feed's next change for the seat is accepted
+        void refused(int i, long userId) {
+            slots.compareAndSet(i, pack(userId, PERSISTING), pack(0, TAKEN));
+        }
+
+        // a seat being persisted only changes through the writer, whatever the feed says meanwhile
+        void apply(int i, int state, long userId, long version) {
+            while (true) {
+                long cur = slots.get(i);
+                if (state(cur) == PERSISTING || version <= versions.get(i)) return;
+
+                if (slots.compareAndSet(i, cur, pack(userId, state))) {
+                    versions.accumulateAndGet(i, version, Math::max);
+                    return;
+                }
+            }
+        }
+    }
+}
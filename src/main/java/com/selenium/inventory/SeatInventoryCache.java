@@ -0,0 +1,635 @@
+package com.selenium.inventory;
+
+import com.selenium.db.DB;
+import com.selenium.model.SeatDelta;
+import com.selenium.model.SeatInfo;
+import com.selenium.model.SeatMap;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class SeatInventoryCache {
+
+    public record CacheStats(int events, long hits, long layoutLoads, long stateLoads, long changesApplied) {}
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("seat.cache.enabled", "true"));
+
+    private static final int MAX_EVENTS = Integer.getInteger("seat.cache.maxEvents", 64);
+    private static final long UNWATCHED_TTL_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("seat.cache.unwatchedTtlMs", 1_000));
+    private static final long ASSUMED_HOLD_MS = Long.getLong("seat.cache.assumedHoldMs", HoldLeaseManager.TTL_MS);
+    private static final int CHANGE_LOG_SIZE = Integer.getInteger("seat.cache.changeLogSize", 4_096);
+
+    // a fresh epoch per layout load, so versions handed out before a reload are never mistaken for current ones
+    private static final AtomicInteger EPOCHS = new AtomicInteger((int) (System.currentTimeMillis() / 1000));
+
+    private static final String LOAD_SQL = """
+            SELECT
+                s.seat_id,
+                s.section,
+                s.row_label,
+                s.seat_no,
+                (es.price * 100)::int AS price_cents,
+                es.state,
+                es.held_by_user_id,
+                es.hold_expires_at,
+                es.version
+            FROM event_seats es
+            JOIN seats s ON s.seat_id = es.seat_id
+            WHERE es.event_id = ?
+            ORDER BY s.section, s.row_label, s.seat_no
+            """;
+
+    private static final String STATE_SQL = """
+            SELECT seat_id, state, held_by_user_id, hold_expires_at, version
+            FROM event_seats
+            WHERE event_id = ?
+            """;
+
+    private static final SeatInventoryCache INSTANCE = new SeatInventoryCache();
+
+    private final LinkedHashMap<Long, EventInventory> events = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder layoutLoads = new LongAdder();
+    private final LongAdder stateLoads = new LongAdder();
+    private final LongAdder changesApplied = new LongAdder();
+
+    private SeatInventoryCache() {
+        SeatChangeFeed.get().subscribeAll(new SeatChangeFeed.Listener() {
+            @Override
+            public void onChange(SeatChangeFeed.SeatChange change) {
+                apply(change);
+            }
+
+            // with the journal on, the transition log covers what the feed missed
+            @Override
+            public void onResync() {
+                if (SeatStateJournal.ENABLED) markBehind();
+                else invalidateState();
+            }
+        });
+    }
+
+    public static SeatInventoryCache get() {
+        return INSTANCE;
+    }
+
+
+    public List<SeatInfo> getSeats(long eventId) throws SQLException {
+        return inventory(eventId).seats();
+    }
+
+    // seats changed after version, or the whole event when that version is unknown or too old
+    public SeatDelta getSeatChangesSince(long eventId, long version) throws SQLException {
+        return inventory(eventId).changesSince(version);
+    }
+
+    public SeatMap getSeatMap(long eventId) throws SQLException {
+        return inventory(eventId).seatMap();
+    }
+
+    // best block of n adjacent available seats, empty when there is none
+    public List<SeatInfo> findBestAvailable(long eventId, int n, String preferredSection, BigDecimal maxPrice)
+            throws SQLException {
+        return inventory(eventId).findBestAvailable(n, preferredSection, maxPrice);
+    }
+
+    public List<String> sections(long eventId) throws SQLException {
+        return inventory(eventId).sections();
+    }
+
+    public long holderOf(long eventId, long seatId) {
+        EventInventory inv = cached(eventId);
+        return inv == null ? 0 : inv.holderOf(seatId);
+    }
+
+
+    public void apply(SeatChangeFeed.SeatChange change) {
+        Timestamp expiresAt = "HELD".equals(change.state())
+                ? new Timestamp(System.currentTimeMillis() + ASSUMED_HOLD_MS)
+                : null;
+        apply(change, 0, expiresAt);
+    }
+
+    public void apply(SeatChangeFeed.SeatChange change, long holderUserId, Timestamp holdExpiresAt) {
+        EventInventory inv = cached(change.eventId());
+        if (inv == null) return;
+
+        long expires = holdExpiresAt == null ? 0 : holdExpiresAt.getTime();
+        if (inv.apply(change.seatId(), change.state(), holderUserId, expires, change.version()))
+            changesApplied.increment();
+    }
+
+    // lease renewals move the expiry without a state change, so they carry no new version
+    public void extendHold(long eventId, long seatId, long holderUserId, Timestamp holdExpiresAt) {
+        EventInventory inv = cached(eventId);
+        if (inv != null) inv.extendHold(seatId, holderUserId, holdExpiresAt.getTime());
+    }
+
+    public void invalidateState(long eventId) {
+        EventInventory inv = cached(eventId);
+        if (inv != null) inv.markStale();
+    }
+
+    public void invalidateState() {
+        List<EventInventory> all;
+        synchronized (events) {
+            all = new ArrayList<>(events.values());
+        }
+        for (EventInventory inv : all) inv.markStale();
+    }
+
+    private void markBehind() {
+        List<EventInventory> all;
+        synchronized (events) {
+            all = new ArrayList<>(events.values());
+        }
+        for (EventInventory inv : all) inv.markBehind();
+    }
+
+    public void evict(long eventId) {
+        synchronized (events) {
+            events.remove(eventId);
+        }
+    }
+
+    public CacheStats getStats() {
+        int n;
+        synchronized (events) {
+            n = events.size();
+        }
+        return new CacheStats(n, hits.sum(), layoutLoads.sum(), stateLoads.sum(), changesApplied.sum());
+    }
+
+
+    // the feed is connected and has delivered everything committed before now, less the log's margin
+    void markSynced(long now) {
+        List<EventInventory> all;
+        synchronized (events) {
+            all = new ArrayList<>(events.values());
+        }
+        for (EventInventory inv : all) inv.markSynced(now);
+    }
+
+    // state of every loaded, current event for the journal's snapshots
+    List<SeatStateJournal.Snapshot> snapshots() {
+        List<EventInventory> all;
+        synchronized (events) {
+            all = new ArrayList<>(events.values());
+        }
+
+        List<SeatStateJournal.Snapshot> out = new ArrayList<>(all.size());
+        for (EventInventory inv : all) {
+            SeatStateJournal.Snapshot s = inv.capture();
+            if (s != null) out.add(s);
+        }
+        return out;
+    }
+
+    // installs an event recovered from the journal, unless it was loaded from the database meanwhile
+    boolean restore(long eventId, SeatMap layout, byte[] states, long[] holders, long[] expiresAt, long[] versions,
+                    long syncedAt) {
+        synchronized (events) {
+            if (events.containsKey(eventId) || events.size() >= MAX_EVENTS) return false;
+
+            EventInventory inv = new EventInventory(eventId);
+            inv.restore(layout, states, holders, expiresAt, versions, syncedAt);
+            events.put(eventId, inv);
+            return true;
+        }
+    }
+
+
+    private EventInventory cached(long eventId) {
+        synchronized (events) {
+            return events.get(eventId);
+        }
+    }
+
+    private EventInventory inventory(long eventId) {
+        synchronized (events) {
+            EventInventory inv = events.get(eventId);
+            if (inv == null) {
+                inv = new EventInventory(eventId);
+                events.put(eventId, inv);
+
+                if (events.size() > MAX_EVENTS) {
+                    Long eldest = events.keySet().iterator().next();
+                    events.remove(eldest);
+                }
+            }
+            return inv;
+        }
+    }
+
+
+    private record PendingChange(long seatId, String state, long holder, long expires, long version) {}
+
+    private final class EventInventory {
+
+        private final long eventId;
+        private final Object loadLock = new Object();
+
+        // layout, fixed once loaded
+        private SeatMap layout;
+        private SeatRowIndex rowIndex;
+
+        // mutable part
+        private byte[] states;
+        private long[] holders;
+        private long[] expiresAt;
+        private long[] versions;
+
+        private boolean stale;
+        private long stateLoadedAt;
+
+        // behind: the feed missed changes that the transition log can replay from syncedAt, the database
+        // time the state was last known complete at (0 when not tracked, without the journal)
+        private boolean behind;
+        private long syncedAt;
+
+        private List<SeatInfo> view;
+        private SeatMap mapView;
+
+        // positions of the last changes in the order they were applied; version = epoch << 32 | changes
+        private int epoch;
+        private long changes;
+        private final int[] changeLog = new int[CHANGE_LOG_SIZE];
+        private List<PendingChange> pending = new ArrayList<>();
+
+        EventInventory(long eventId) {
+            this.eventId = eventId;
+        }
+
+        List<SeatInfo> seats() throws SQLException {
+            refresh();
+
+            synchronized (this) {
+                if (view == null) view = buildView();
+                return view;
+            }
+        }
+
+        SeatDelta changesSince(long version) throws SQLException {
+            refresh();
+
+            synchronized (this) {
+                long current = (long) epoch << 32 | changes;
+                long since = version & 0xffffffffL;
+
+                if ((int) (version >>> 32) != epoch || since > changes || changes - since > changeLog.length) {
+                    if (view == null) view = buildView();
+                    return new SeatDelta(current, true, view);
+                }
+
+                BitSet seen = new BitSet(states.length);
+                List<SeatInfo> out = new ArrayList<>();
+
+                // newest first, each seat once, with its current state
+                for (long c = changes; c > since; c--) {
+                    int i = changeLog[(int) ((c - 1) % changeLog.length)];
+                    if (seen.get(i)) continue;
+                    seen.set(i);
+                    out.add(seatInfo(i));
+                }
+                return new SeatDelta(current, false, out);
+            }
+        }
+
+        SeatMap seatMap() throws SQLException {
+            refresh();
+
+            synchronized (this) {
+                if (mapView == null) mapView = layout.withStates(states.clone());
+                return mapView;
+            }
+        }
+
+        List<SeatInfo> findBestAvailable(int n, String preferredSection, BigDecimal maxPrice) throws SQLException {
+            refresh();
+
+            synchronized (this) {
+                int[] found = rowIndex.find(n, preferredSection, maxPrice);
+                if (found == null) return List.of();
+
+                List<SeatInfo> out = new ArrayList<>(found.length);
+                for (int i : found) out.add(seatInfo(i));
+                return out;
+            }
+        }
+
+        List<String> sections() throws SQLException {
+            refresh();
+
+            synchronized (this) {
+                return rowIndex.sections();
+            }
+        }
+
+        private void refresh() throws SQLException {
+            synchronized (loadLock) {
+                if (!isLoaded()) {
+                    loadLayout();
+                } else if (!needsStateReload()) {
+                    hits.increment();
+                } else if (canCatchUp()) {
+                    catchUp();
+                } else {
+                    loadState();
+                }
+            }
+        }
+
+        private synchronized boolean isLoaded() {
+            return layout != null;
+        }
+
+        private synchronized boolean needsStateReload() {
+            if (stale || behind) return true;
+            return !SeatChangeFeed.get().isRunning() && System.nanoTime() - stateLoadedAt > UNWATCHED_TTL_NANOS;
+        }
+
+        private synchronized boolean canCatchUp() {
+            return SeatStateJournal.ENABLED && !stale && SeatTransitionLog.reaches(syncedAt);
+        }
+
+        synchronized void markStale() {
+            stale = true;
+        }
+
+        synchronized void markBehind() {
+            behind = true;
+        }
+
+        synchronized void markSynced(long now) {
+            if (layout != null && !stale && !behind) syncedAt = Math.max(syncedAt, now);
+        }
+
+        private void loadLayout() throws SQLException {
+            SeatMap.Builder builder = new SeatMap.Builder();
+            long[] hs = new long[256];
+            long[] ex = new long[256];
+            long[] vs = new long[256];
+            int n = 0;
+            long now;
+
+            try (Connection con = DB.getConnection();
+                 PreparedStatement ps = con.prepareStatement(LOAD_SQL)) {
+
+                now = SeatStateJournal.ENABLED ? SeatTransitionLog.now(con) : 0;
+                ps.setLong(1, eventId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        builder.add(
+                                rs.getLong("seat_id"),
+                                rs.getString("section"),
+                                rs.getString("row_label"),
+                                rs.getInt("seat_no"),
+                                rs.getInt("price_cents"),
+                                SeatMap.stateCode(rs.getString("state"))
+                        );
+
+                        if (n == hs.length) {
+                            hs = Arrays.copyOf(hs, n * 2);
+                            ex = Arrays.copyOf(ex, n * 2);
+                            vs = Arrays.copyOf(vs, n * 2);
+                        }
+                        hs[n] = rs.getLong("held_by_user_id");
+                        ex[n] = millis(rs.getTimestamp("hold_expires_at"));
+                        vs[n] = rs.getLong("version");
+                        n++;
+                    }
+                }
+            }
+
+            SeatMap loaded = builder.build();
+
+            synchronized (this) {
+                layout = loaded;
+                states = loaded.copyStates();
+                holders = Arrays.copyOf(hs, n);
+                expiresAt = Arrays.copyOf(ex, n);
+                versions = Arrays.copyOf(vs, n);
+                rowIndex = new SeatRowIndex(loaded, states);
+                epoch = EPOCHS.incrementAndGet();
+
+                // changes that arrived while the layout was loading
+                for (PendingChange c : pending)
+                    applyLocked(c.seatId(), c.state(), c.holder(), c.expires(), c.version());
+                pending = null;
+
+                stale = false;
+                behind = false;
+                syncedAt = now;
+                stateLoadedAt = System.nanoTime();
+                view = null;
+                mapView = null;
+            }
+
+            layoutLoads.increment();
+        }
+
+        // seats were added to the event: a new layout, keeping the changes that arrive meanwhile
+        private void reloadLayout() throws SQLException {
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+
+            try {
+                loadLayout();
+            } catch (SQLException ex) {
+                synchronized (this) {
+                    pending = null;
+                    behind = true;
+                }
+                throw ex;
+            }
+        }
+
+        private void loadState() throws SQLException {
+            synchronized (this) {
+                stale = false;
+                behind = false;
+            }
+
+            try (Connection con = DB.getConnection();
+                 PreparedStatement ps = con.prepareStatement(STATE_SQL)) {
+
+                long now = SeatStateJournal.ENABLED ? SeatTransitionLog.now(con) : 0;
+                ps.setLong(1, eventId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    synchronized (this) {
+                        while (rs.next()) {
+                            applyLocked(
+                                    rs.getLong("seat_id"),
+                                    rs.getString("state"),
+                                    rs.getLong("held_by_user_id"),
+                                    millis(rs.getTimestamp("hold_expires_at")),
+                                    rs.getLong("version")
+                            );
+                        }
+                        syncedAt = now;
+                        stateLoadedAt = System.nanoTime();
+                    }
+                }
+            } catch (SQLException ex) {
+                markStale();
+                throw ex;
+            }
+
+            stateLoads.increment();
+        }
+
+        // replays the transitions every writer made since syncedAt instead of reading every seat
+        private void catchUp() throws SQLException {
+            long from;
+            synchronized (this) {
+                behind = false;
+                from = syncedAt;
+            }
+
+            long now;
+            List<SeatTransitionLog.Transition> tail;
+            try (Connection con = DB.getConnection()) {
+                now = SeatTransitionLog.now(con);
+                tail = SeatTransitionLog.since(con, eventId, from);
+            } catch (SQLException ex) {
+                markBehind();
+                throw ex;
+            }
+
+            synchronized (this) {
+                for (SeatTransitionLog.Transition t : tail) {
+                    if (layout.indexOf(t.seatId()) < 0) {
+                        behind = true;
+                        break;
+                    }
+                    applyLocked(t.seatId(), t.state(), t.holder(), t.expiresAt(), t.version());
+                }
+
+                if (!behind) {
+                    syncedAt = now;
+                    stateLoadedAt = System.nanoTime();
+                }
+            }
+
+            if (isBehind()) {
+                reloadLayout();
+                return;
+            }
+            stateLoads.increment();
+        }
+
+        private synchronized boolean isBehind() {
+            return behind;
+        }
+
+        synchronized void restore(SeatMap loaded, byte[] states, long[] holders, long[] expiresAt, long[] versions,
+                                  long syncedAt) {
+            layout = loaded;
+            this.states = states;
+            this.holders = holders;
+            this.expiresAt = expiresAt;
+            this.versions = versions;
+            rowIndex = new SeatRowIndex(loaded, states);
+            epoch = EPOCHS.incrementAndGet();
+            pending = null;
+
+            this.syncedAt = syncedAt;
+            stateLoadedAt = System.nanoTime();
+        }
+
+        synchronized SeatStateJournal.Snapshot capture() {
+            if (layout == null || stale || behind || syncedAt == 0) return null;
+
+            return new SeatStateJournal.Snapshot(
+                    eventId,
+                    syncedAt,
+                    layout.withStates(states.clone()),
+                    holders.clone(),
+                    expiresAt.clone(),
+                    versions.clone()
+            );
+        }
+
+        synchronized boolean apply(long seatId, String state, long holder, long expires, long version) {
+            if (pending != null) pending.add(new PendingChange(seatId, state, holder, expires, version));
+            if (layout == null) return false;
+            return applyLocked(seatId, state, holder, expires, version);
+        }
+
+        // versions only grow, so whichever of feed, write-through or reload saw the newer row wins
+        private boolean applyLocked(long seatId, String state, long holder, long expires, long version) {
+            int i = layout.indexOf(seatId);
+            if (i < 0 || version < versions[i]) return false;
+
+            byte code = SeatMap.stateCode(state);
+
+            // same row version: a renewed lease or a repeat of a change already applied
+            if (version == versions[i] && code == states[i]) {
+                if (holder != 0) holders[i] = holder;
+                if (expires != 0) expiresAt[i] = expires;
+                return false;
+            }
+
+            boolean changed = code != states[i];
+
+            states[i] = code;
+            holders[i] = holder;
+            expiresAt[i] = expires;
+            versions[i] = version;
+
+            if (changed) {
+                view = null;
+                mapView = null;
+                rowIndex.update(i, code == SeatMap.AVAILABLE);
+                changeLog[(int) (changes++ % changeLog.length)] = i;
+            }
+            return changed;
+        }
+
+        synchronized void extendHold(long seatId, long holder, long expires) {
+            if (layout == null) return;
+
+            int i = layout.indexOf(seatId);
+            if (i >= 0 && states[i] == SeatMap.HELD && holders[i] == holder && expires > expiresAt[i])
+                expiresAt[i] = expires;
+        }
+
+        synchronized long holderOf(long seatId) {
+            if (layout == null) return 0;
+            int i = layout.indexOf(seatId);
+            return i < 0 ? 0 : holders[i];
+        }
+
+        private SeatInfo seatInfo(int i) {
+            return new SeatInfo(layout.seatId(i), layout.label(i), layout.price(i), SeatMap.stateName(states[i]));
+        }
+
+        private List<SeatInfo> buildView() {
+            List<SeatInfo> out = new ArrayList<>(states.length);
+            for (int i = 0; i < states.length; i++) out.add(seatInfo(i));
+            return Collections.unmodifiableList(out);
+        }
+    }
+
+    private static long millis(Timestamp ts) {
+        return ts == null ? 0 : ts.getTime();
+    }
+}
@@ -0,0 +1,183 @@
+package com.selenium.inventory;
+
+import com.selenium.model.SeatInfo;
+import com.selenium.model.SeatMap;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Free-seat bitmap per row plus the longest free run, so rows that cannot fit N seats are skipped
+// without looking at their bits. Guarded by the owning EventInventory's lock.
+public final class SeatRowIndex {
+
+    private static final class Row {
+        final String section;
+        final int firstSeatNo;
+        final int[] positionAt;
+        final BitSet free = new BitSet();
+        int maxPriceCents = Integer.MIN_VALUE;
+        int maxRun;
+
+        Row(String section, int firstSeatNo, int width) {
+            this.section = section;
+            this.firstSeatNo = firstSeatNo;
+            this.positionAt = new int[width];
+            Arrays.fill(positionAt, -1);
+        }
+    }
+
+    private final List<Row> rows = new ArrayList<>();
+    private final int[] rowOf;
+    private final int[] bitOf;
+    private final SeatMap layout;
+
+    // the layout must be ordered by section, row, seat number
+    SeatRowIndex(SeatMap layout, byte[] states) {
+        int n = layout.size();
+        this.layout = layout;
+        this.rowOf = new int[n];
+        this.bitOf = new int[n];
+
+        int start = 0;
+        while (start < n) {
+            int end = start;
+            int maxSeatNo = layout.seatNo(start);
+
+            while (end < n && layout.section(end).equals(layout.section(start))
+                    && layout.rowLabel(end).equals(layout.rowLabel(start))) {
+                maxSeatNo = Math.max(maxSeatNo, layout.seatNo(end));
+                end++;
+            }
+
+            Row row = new Row(layout.section(start), layout.seatNo(start), maxSeatNo - layout.seatNo(start) + 1);
+            int rowIdx = rows.size();
+
+            for (int p = start; p < end; p++) {
+                int bit = layout.seatNo(p) - row.firstSeatNo;
+                row.positionAt[bit] = p;
+                rowOf[p] = rowIdx;
+                bitOf[p] = bit;
+
+                row.maxPriceCents = Math.max(row.maxPriceCents, layout.priceCents(p));
+                if (states[p] == SeatMap.AVAILABLE) row.free.set(bit);
+            }
+
+            row.maxRun = longestRun(row.free);
+            rows.add(row);
+            start = end;
+        }
+    }
+
+    void update(int position, boolean free) {
+        Row row = rows.get(rowOf[position]);
+        int bit = bitOf[position];
+
+        if (row.free.get(bit) == free) return;
+
+        row.free.set(bit, free);
+        row.maxRun = free ? Math.max(row.maxRun, runAround(row.free, bit)) : longestRun(row.free);
+    }
+
+    List<String> sections() {
+        Set<String> out = new LinkedHashSet<>();
+        for (Row r : rows) out.add(r.section);
+        return new ArrayList<>(out);
+    }
+
+    // one-off search over a freshly loaded map, for when the inventory cache is off; nothing is kept
+    public static List<SeatInfo> findBestAvailable(SeatMap seats, int n, String preferredSection, BigDecimal maxPrice) {
+        int[] found = new SeatRowIndex(seats, seats.copyStates()).find(n, preferredSection, maxPrice);
+        if (found == null) return List.of();
+
+        List<SeatInfo> out = new ArrayList<>(found.length);
+        for (int i : found) out.add(seats.toSeatInfo(i));
+        return out;
+    }
+
+    // positions of the best block of n adjacent free seats, or null
+    int[] find(int n, String preferredSection, BigDecimal maxPrice) {
+        if (n <= 0) return null;
+
+        int maxCents = maxPrice == null
+                ? Integer.MAX_VALUE
+                : maxPrice.movePointRight(2).setScale(0, RoundingMode.FLOOR).intValue();
+
+        if (preferredSection != null) {
+            int[] found = scan(n, preferredSection, true, maxCents);
+            if (found != null) return found;
+        }
+        return scan(n, preferredSection, false, maxCents);
+    }
+
+    private int[] scan(int n, String section, boolean inSection, int maxCents) {
+        for (Row row : rows) {
+            if (row.maxRun < n) continue;
+            if (section != null && row.section.equals(section) != inSection) continue;
+
+            BitSet candidates = row.free;
+
+            if (row.maxPriceCents > maxCents) {
+                candidates = (BitSet) row.free.clone();
+                for (int b = candidates.nextSetBit(0); b >= 0; b = candidates.nextSetBit(b + 1)) {
+                    if (layout.priceCents(row.positionAt[b]) > maxCents) candidates.clear(b);
+                }
+            }
+
+            int start = centeredStart(candidates, n, row.positionAt.length);
+            if (start < 0) continue;
+
+            int[] out = new int[n];
+            for (int i = 0; i < n; i++) out[i] = row.positionAt[start + i];
+            return out;
+        }
+        return null;
+    }
+
+    // among all blocks of n inside free runs, the one whose middle is closest to the middle of the row
+    private static int centeredStart(BitSet free, int n, int width) {
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        double center = (width - 1) / 2.0;
+
+        for (int from = free.nextSetBit(0); from >= 0; ) {
+            int to = free.nextClearBit(from);
+
+            if (to - from >= n) {
+                // the ideal start clamped into this run
+                int ideal = (int) Math.round(center - (n - 1) / 2.0);
+                int start = Math.max(from, Math.min(ideal, to - n));
+                double distance = Math.abs(start + (n - 1) / 2.0 - center);
+
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = start;
+                }
+            }
+
+            from = free.nextSetBit(to);
+        }
+        return best;
+    }
+
+    private static int longestRun(BitSet free) {
+        int max = 0;
+        for (int from = free.nextSetBit(0); from >= 0; ) {
+            int to = free.nextClearBit(from);
+            max = Math.max(max, to - from);
+            from = free.nextSetBit(to);
+        }
+        return max;
+    }
+
+    private static int runAround(BitSet free, int bit) {
+        int to = free.nextClearBit(bit);
+        int from = free.previousClearBit(bit) + 1;
+        return to - from;
+    }
+}
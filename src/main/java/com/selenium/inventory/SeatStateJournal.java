@@ -0,0 +1,342 @@
+package com.selenium.inventory;
+
+import com.selenium.db.DB;
+import com.selenium.model.SeatMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+// Local snapshots of the cached events, so a restarted node gets its hot events back from disk instead of
+// reloading them from event_seats. Every snapshotMs each cached event is written as a compact binary
+// snapshot. The tail is not kept locally, since it would miss other clients' writes: recovery reads the
+// snapshots, then replays seat_transitions since each one per event in parallel. With the journal on,
+// the cache also catches up from seat_transitions when the seat change feed reconnects.
+public final class SeatStateJournal {
+
+    public record JournalStats(
+            long snapshotsWritten,
+            int recoveredEvents,
+            long replayedTransitions,
+            long recoveryMs
+    ) {}
+
+    // state of one cached event, complete up to syncedAt (database time) less the transition log's margin
+    record Snapshot(long eventId, long syncedAt, SeatMap seats, long[] holders, long[] expiresAt, long[] versions) {}
+
+    public static final boolean ENABLED = Boolean.getBoolean("seat.journal.enabled");
+
+    private static final Path DIR = Path.of(System.getProperty("seat.journal.dir", "seat-journal"));
+    private static final long SNAPSHOT_MS = Long.getLong("seat.journal.snapshotMs", 60_000);
+    private static final int PARALLELISM =
+            Integer.getInteger("seat.journal.replayParallelism", Runtime.getRuntime().availableProcessors());
+
+    private static final int SNAPSHOT_MAGIC = 0x53534e50;
+    private static final int SNAPSHOT_FORMAT = 2;
+
+    private static final SeatStateJournal INSTANCE = new SeatStateJournal();
+
+    private final LongAdder snapshotsWritten = new LongAdder();
+
+    private volatile int recoveredEvents;
+    private volatile long replayedTransitions;
+    private volatile long recoveryMs;
+
+    private volatile boolean running;
+    private volatile Thread snapshotter;
+
+    private SeatStateJournal() {}
+
+    public static SeatStateJournal get() {
+        return INSTANCE;
+    }
+
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+
+        Files.createDirectories(DIR);
+
+        running = true;
+        snapshotter = new Thread(this::run, "seat-journal-snapshotter");
+        snapshotter.setDaemon(true);
+        snapshotter.start();
+    }
+
+    public void stop() {
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+
+            Thread t = snapshotter;
+            snapshotter = null;
+            if (t != null) t.interrupt();
+        }
+
+        // a snapshot on the way out makes the next start replay only what changed while it was down
+        snapshotQuietly();
+    }
+
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(SNAPSHOT_MS);
+            } catch (InterruptedException ex) {
+                break;
+            }
+
+            snapshotQuietly();
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshotAll();
+        } catch (IOException | SQLException ex) {
+            System.out.println("⚠ Seat journal snapshot failed: " + ex.getMessage());
+        }
+    }
+
+    private void snapshotAll() throws IOException, SQLException {
+        // anything the feed drops after this is replayed from now on by the resync that follows
+        if (SeatChangeFeed.get().isConnected()) {
+            try (Connection con = DB.getConnection()) {
+                SeatInventoryCache.get().markSynced(SeatTransitionLog.now(con));
+            }
+        }
+
+        Set<Path> written = new HashSet<>();
+        for (Snapshot s : SeatInventoryCache.get().snapshots()) {
+            written.add(writeSnapshot(s));
+            snapshotsWritten.increment();
+        }
+
+        // events no longer cached are not journaled any more, their snapshots would only go stale
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(DIR, "event-*.snap")) {
+            for (Path p : files)
+                if (!written.contains(p)) Files.deleteIfExists(p);
+        }
+    }
+
+    private static Path writeSnapshot(Snapshot s) throws IOException {
+        SeatMap seats = s.seats();
+        Path target = DIR.resolve("event-" + s.eventId() + ".snap");
+        Path tmp = DIR.resolve("event-" + s.eventId() + ".snap.tmp");
+
+        Map<String, Integer> sections = new LinkedHashMap<>();
+        Map<String, Integer> rows = new LinkedHashMap<>();
+        for (int i = 0; i < seats.size(); i++) {
+            sections.putIfAbsent(seats.section(i), sections.size());
+            rows.putIfAbsent(seats.rowLabel(i), rows.size());
+        }
+
+        byte maxState = 0;
+        for (int i = 0; i < seats.size(); i++) maxState = (byte) Math.max(maxState, seats.stateCode(i));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_FORMAT);
+            out.writeLong(s.eventId());
+            out.writeLong(s.syncedAt());
+
+            out.writeByte(maxState + 1);
+            for (byte c = 0; c <= maxState; c++) out.writeUTF(SeatMap.stateName(c));
+
+            writeDictionary(out, sections);
+            writeDictionary(out, rows);
+
+            out.writeInt(seats.size());
+            for (int i = 0; i < seats.size(); i++) {
+                out.writeLong(seats.seatId(i));
+                out.writeInt(sections.get(seats.section(i)));
+                out.writeInt(rows.get(seats.rowLabel(i)));
+                out.writeInt(seats.seatNo(i));
+                out.writeInt(seats.priceCents(i));
+                out.writeByte(seats.stateCode(i));
+                out.writeLong(s.holders()[i]);
+                out.writeLong(s.expiresAt()[i]);
+                out.writeLong(s.versions()[i]);
+            }
+        }
+
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    private static void writeDictionary(DataOutputStream out, Map<String, Integer> dictionary) throws IOException {
+        out.writeInt(dictionary.size());
+        for (String value : dictionary.keySet()) out.writeUTF(value);
+    }
+
+
+    // Loads the snapshots left by the previous run, replays seat_transitions behind them and hands the events
+    // to the inventory cache. Call before start(); snapshots older than the log's retention are dropped.
+    public void recover() throws IOException, SQLException {
+        if (!Files.isDirectory(DIR)) return;
+
+        long start = System.nanoTime();
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(DIR, "event-*.snap")) {
+            for (Path p : stream) files.add(p);
+        }
+        if (files.isEmpty()) return;
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(PARALLELISM, files.size())));
+
+        try {
+            List<Future<Recovered>> loads = new ArrayList<>();
+            for (Path p : files) loads.add(pool.submit(() -> recoverEvent(p)));
+
+            int restored = 0;
+            long transitions = 0;
+            for (Future<Recovered> f : loads) {
+                Recovered r = f.get();
+                if (r == null) continue;
+
+                transitions += r.replayed;
+                if (SeatInventoryCache.get().restore(r.eventId, r.seats, r.states, r.holders, r.expiresAt, r.versions,
+                        r.syncedAt))
+                    restored++;
+            }
+
+            recoveredEvents = restored;
+            replayedTransitions = transitions;
+            recoveryMs = (System.nanoTime() - start) / 1_000_000;
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Seat journal recovery interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof SQLException sql) throw sql;
+            throw new IOException(cause.getMessage(), cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // null when the event is better loaded from event_seats: snapshot unreadable or too old, seats added since
+    private static Recovered recoverEvent(Path file) throws IOException, SQLException {
+        Recovered r = readSnapshot(file);
+        if (r == null || !SeatTransitionLog.reaches(r.syncedAt)) return null;
+
+        try (Connection con = DB.getConnection()) {
+            long now = SeatTransitionLog.now(con);
+            if (!r.replay(SeatTransitionLog.since(con, r.eventId, r.syncedAt))) return null;
+            r.syncedAt = now;
+        }
+        return r;
+    }
+
+    private static Recovered readSnapshot(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT) return null;
+
+            long eventId = in.readLong();
+            long syncedAt = in.readLong();
+
+            // state codes of the writing process mapped to this one's
+            byte[] stateCodes = new byte[in.readUnsignedByte()];
+            for (int c = 0; c < stateCodes.length; c++) stateCodes[c] = SeatMap.stateCode(in.readUTF());
+
+            String[] sections = readDictionary(in);
+            String[] rows = readDictionary(in);
+
+            int n = in.readInt();
+            SeatMap.Builder builder = new SeatMap.Builder();
+            long[] holders = new long[n];
+            long[] expiresAt = new long[n];
+            long[] versions = new long[n];
+
+            for (int i = 0; i < n; i++) {
+                builder.add(in.readLong(), sections[in.readInt()], rows[in.readInt()], in.readInt(), in.readInt(),
+                        stateCodes[in.readByte()]);
+                holders[i] = in.readLong();
+                expiresAt[i] = in.readLong();
+                versions[i] = in.readLong();
+            }
+
+            return new Recovered(eventId, syncedAt, builder.build(), holders, expiresAt, versions);
+        }
+    }
+
+    private static String[] readDictionary(DataInputStream in) throws IOException {
+        String[] values = new String[in.readInt()];
+        for (int i = 0; i < values.length; i++) values[i] = in.readUTF();
+        return values;
+    }
+
+    private static final class Recovered {
+        final long eventId;
+        final SeatMap seats;
+        final byte[] states;
+        final long[] holders;
+        final long[] expiresAt;
+        final long[] versions;
+
+        long syncedAt;
+        int replayed;
+
+        Recovered(long eventId, long syncedAt, SeatMap seats, long[] holders, long[] expiresAt, long[] versions) {
+            this.eventId = eventId;
+            this.syncedAt = syncedAt;
+            this.seats = seats;
+            this.states = seats.copyStates();
+            this.holders = holders;
+            this.expiresAt = expiresAt;
+            this.versions = versions;
+        }
+
+        // false when the tail names a seat the snapshot does not have, or a state this build does not know
+        boolean replay(List<SeatTransitionLog.Transition> tail) {
+            for (SeatTransitionLog.Transition t : tail) {
+                int i = seats.indexOf(t.seatId());
+                if (i < 0) return false;
+                if (t.version() <= versions[i]) continue;
+
+                try {
+                    states[i] = SeatMap.stateCode(t.state());
+                } catch (IllegalArgumentException ex) {
+                    return false;
+                }
+                versions[i] = t.version();
+                holders[i] = t.holder();
+                expiresAt[i] = t.expiresAt();
+                replayed++;
+            }
+            return true;
+        }
+    }
+
+
+    public JournalStats getStats() {
+        return new JournalStats(
+                snapshotsWritten.sum(),
+                recoveredEvents,
+                replayedTransitions,
+                recoveryMs
+        );
+    }
+}
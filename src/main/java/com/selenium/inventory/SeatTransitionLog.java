@@ -0,0 +1,90 @@
+package com.selenium.inventory;
+
+import com.selenium.db.DB;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+// seat_transitions, the copy of every event_seats state change the database keeps for all writers.
+// Caches use it to catch up after the seat change feed dropped and after a restart from a snapshot.
+// Times are database clock (LOCALTIMESTAMP) in epoch ms.
+final class SeatTransitionLog {
+
+    // seatId 0: seats were added to the event, the layout is out of date
+    record Transition(long seatId, String state, long holder, long expiresAt, long version) {}
+
+    static final long RETENTION_MS = Long.getLong("seat.transitions.retentionMs", 24 * 60 * 60_000L);
+
+    // a row carries its transaction's start time, so one that committed after a sync can be stamped
+    // before it; replays start this much earlier, longer than any seat transaction runs
+    static final long MARGIN_MS = Long.getLong("seat.transitions.marginMs", 5 * 60_000L);
+
+    private static final String NOW_SQL = "SELECT LOCALTIMESTAMP";
+
+    private static final String SINCE_SQL = """
+            SELECT seat_id, new_state, held_by_user_id, hold_expires_at, version
+            FROM seat_transitions
+            WHERE event_id = ?
+              AND changed_at >= ?
+            ORDER BY version
+            """;
+
+    private static final String PRUNE_SQL = """
+            DELETE FROM seat_transitions
+            WHERE changed_at < LOCALTIMESTAMP - (? * INTERVAL '1 millisecond')
+            """;
+
+    private SeatTransitionLog() {}
+
+
+    static long now(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(NOW_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getTimestamp(1).getTime();
+        }
+    }
+
+    // whether the log still holds everything after a state synced at syncedAt
+    static boolean reaches(long syncedAt) {
+        return syncedAt > 0 && System.currentTimeMillis() - syncedAt < RETENTION_MS - MARGIN_MS;
+    }
+
+    // transitions of the event from MARGIN_MS before syncedAt on, oldest first; some may already be applied
+    static List<Transition> since(Connection con, long eventId, long syncedAt) throws SQLException {
+        List<Transition> out = new ArrayList<>();
+
+        try (PreparedStatement ps = con.prepareStatement(SINCE_SQL)) {
+            ps.setLong(1, eventId);
+            ps.setTimestamp(2, new Timestamp(syncedAt - MARGIN_MS));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp expires = rs.getTimestamp("hold_expires_at");
+                    out.add(new Transition(
+                            rs.getLong("seat_id"),
+                            rs.getString("new_state"),
+                            rs.getLong("held_by_user_id"),
+                            expires == null ? 0 : expires.getTime(),
+                            rs.getLong("version")
+                    ));
+                }
+            }
+        }
+        return out;
+    }
+
+    static int prune() throws SQLException {
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(PRUNE_SQL)) {
+
+            ps.setLong(1, RETENTION_MS);
+            return ps.executeUpdate();
+        }
+    }
+}
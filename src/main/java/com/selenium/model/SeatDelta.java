@@ -0,0 +1,24 @@
+package com.selenium.model;
+
+import java.util.List;
+
+public class SeatDelta {
+
+    private final long version;
+    private final boolean snapshot;
+    private final List<SeatInfo> seats;
+
+    public SeatDelta(long version, boolean snapshot, List<SeatInfo> seats) {
+        this.version = version;
+        this.snapshot = snapshot;
+        this.seats = seats;
+    }
+
+    // pass back to getSeatChangesSince to get what changed after this one
+    public long getVersion() { return version; }
+
+    // true: seats is the whole event, false: only the seats that changed, with their current state
+    public boolean isSnapshot() { return snapshot; }
+
+    public List<SeatInfo> getSeats() { return seats; }
+}
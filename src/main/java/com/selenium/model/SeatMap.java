@@ -0,0 +1,224 @@
+package com.selenium.model;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Seat list of an event as parallel primitive arrays: no object per seat, labels are rebuilt on demand
+// from the section / row dictionaries. Layout arrays are shared between maps of the same event.
+public final class SeatMap {
+
+    // every event_seats.state; codes are fixed, so they mean the same in every process and on disk
+    public static final byte AVAILABLE = 0;
+    public static final byte HELD = 1;
+    public static final byte BOOKED = 2;
+    public static final byte BLOCKED = 3;
+
+    private static final String[] STATE_NAMES = {"AVAILABLE", "HELD", "BOOKED", "BLOCKED"};
+
+    private final long[] seatIds;
+    private final int[] sectionOf;
+    private final int[] rowOf;
+    private final int[] seatNos;
+    private final int[] priceCents;
+    private final String[] sections;
+    private final String[] rows;
+    private final byte[] states;
+
+    // seat ids in ascending order and the position each one sits at, for indexOf
+    private final long[] sortedIds;
+    private final int[] sortedPositions;
+
+    private SeatMap(long[] seatIds, int[] sectionOf, int[] rowOf, int[] seatNos, int[] priceCents,
+                    String[] sections, String[] rows, byte[] states, long[] sortedIds, int[] sortedPositions) {
+        this.seatIds = seatIds;
+        this.sectionOf = sectionOf;
+        this.rowOf = rowOf;
+        this.seatNos = seatNos;
+        this.priceCents = priceCents;
+        this.sections = sections;
+        this.rows = rows;
+        this.states = states;
+        this.sortedIds = sortedIds;
+        this.sortedPositions = sortedPositions;
+    }
+
+    // reads seat_id, section, row_label, seat_no, price_cents and state, in layout order
+    public static SeatMap fromResultSet(ResultSet rs) throws SQLException {
+        Builder b = new Builder();
+        while (rs.next()) {
+            b.add(
+                    rs.getLong("seat_id"),
+                    rs.getString("section"),
+                    rs.getString("row_label"),
+                    rs.getInt("seat_no"),
+                    rs.getInt("price_cents"),
+                    stateCode(rs.getString("state"))
+            );
+        }
+        return b.build();
+    }
+
+    // same layout, different states; the array is taken over, not copied
+    public SeatMap withStates(byte[] states) {
+        if (states.length != seatIds.length)
+            throw new IllegalArgumentException("Expected " + seatIds.length + " states, got " + states.length);
+
+        return new SeatMap(seatIds, sectionOf, rowOf, seatNos, priceCents, sections, rows, states, sortedIds, sortedPositions);
+    }
+
+
+    public int size() { return seatIds.length; }
+
+    public long seatId(int i) { return seatIds[i]; }
+    public String section(int i) { return sections[sectionOf[i]]; }
+    public String rowLabel(int i) { return rows[rowOf[i]]; }
+    public int seatNo(int i) { return seatNos[i]; }
+    public int priceCents(int i) { return priceCents[i]; }
+    public BigDecimal price(int i) { return BigDecimal.valueOf(priceCents[i], 2); }
+    public byte stateCode(int i) { return states[i]; }
+    public String state(int i) { return stateName(states[i]); }
+    public boolean isAvailable(int i) { return states[i] == AVAILABLE; }
+
+    public String label(int i) {
+        return sections[sectionOf[i]] + "-" + rows[rowOf[i]] + seatNos[i];
+    }
+
+    // position of the seat, or -1
+    public int indexOf(long seatId) {
+        int k = Arrays.binarySearch(sortedIds, seatId);
+        return k < 0 ? -1 : sortedPositions[k];
+    }
+
+    public byte[] copyStates() {
+        return states.clone();
+    }
+
+    public SeatInfo toSeatInfo(int i) {
+        return new SeatInfo(seatIds[i], label(i), price(i), state(i));
+    }
+
+    public List<SeatInfo> toSeatInfos() {
+        List<SeatInfo> out = new ArrayList<>(seatIds.length);
+        for (int i = 0; i < seatIds.length; i++) out.add(toSeatInfo(i));
+        return out;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+
+    public static byte stateCode(String state) {
+        return switch (state) {
+            case "AVAILABLE" -> AVAILABLE;
+            case "HELD" -> HELD;
+            case "BOOKED" -> BOOKED;
+            case "BLOCKED" -> BLOCKED;
+            default -> throw new IllegalArgumentException("Unknown seat state: " + state);
+        };
+    }
+
+    public static String stateName(byte code) {
+        return STATE_NAMES[code];
+    }
+
+
+    // forward-only view over the map: while (c.next()) { c.seatId(); ... }
+    public final class Cursor {
+        private int i = -1;
+
+        private Cursor() {}
+
+        public boolean next() { return ++i < seatIds.length; }
+        public int position() { return i; }
+
+        public long seatId() { return seatIds[i]; }
+        public String section() { return sections[sectionOf[i]]; }
+        public String rowLabel() { return rows[rowOf[i]]; }
+        public int seatNo() { return seatNos[i]; }
+        public int priceCents() { return priceCents[i]; }
+        public BigDecimal price() { return SeatMap.this.price(i); }
+        public byte stateCode() { return states[i]; }
+        public String state() { return stateName(states[i]); }
+        public boolean isAvailable() { return states[i] == AVAILABLE; }
+        public String label() { return SeatMap.this.label(i); }
+    }
+
+
+    public static final class Builder {
+        private long[] seatIds = new long[256];
+        private int[] sectionOf = new int[256];
+        private int[] rowOf = new int[256];
+        private int[] seatNos = new int[256];
+        private int[] priceCents = new int[256];
+        private byte[] states = new byte[256];
+        private int size;
+
+        private final Map<String, Integer> sectionCodes = new HashMap<>();
+        private final Map<String, Integer> rowCodes = new HashMap<>();
+        private final List<String> sections = new ArrayList<>();
+        private final List<String> rows = new ArrayList<>();
+
+        public Builder add(long seatId, String section, String rowLabel, int seatNo, int priceCents, byte state) {
+            if (size == seatIds.length) grow();
+
+            seatIds[size] = seatId;
+            sectionOf[size] = code(section, sectionCodes, sections);
+            rowOf[size] = code(rowLabel, rowCodes, rows);
+            seatNos[size] = seatNo;
+            this.priceCents[size] = priceCents;
+            states[size] = state;
+            size++;
+            return this;
+        }
+
+        public SeatMap build() {
+            long[] ids = Arrays.copyOf(seatIds, size);
+
+            // seat ids are unique within an event, so each one finds its own slot
+            long[] sortedIds = ids.clone();
+            Arrays.sort(sortedIds);
+            int[] sortedPositions = new int[size];
+            for (int p = 0; p < size; p++) sortedPositions[Arrays.binarySearch(sortedIds, ids[p])] = p;
+
+            return new SeatMap(
+                    ids,
+                    Arrays.copyOf(sectionOf, size),
+                    Arrays.copyOf(rowOf, size),
+                    Arrays.copyOf(seatNos, size),
+                    Arrays.copyOf(priceCents, size),
+                    sections.toArray(new String[0]),
+                    rows.toArray(new String[0]),
+                    Arrays.copyOf(states, size),
+                    sortedIds,
+                    sortedPositions
+            );
+        }
+
+        private void grow() {
+            int n = seatIds.length * 2;
+            seatIds = Arrays.copyOf(seatIds, n);
+            sectionOf = Arrays.copyOf(sectionOf, n);
+            rowOf = Arrays.copyOf(rowOf, n);
+            seatNos = Arrays.copyOf(seatNos, n);
+            priceCents = Arrays.copyOf(priceCents, n);
+            states = Arrays.copyOf(states, n);
+        }
+
+        private static int code(String value, Map<String, Integer> codes, List<String> values) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+    }
+}
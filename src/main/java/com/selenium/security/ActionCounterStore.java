@@ -0,0 +1,242 @@
+package com.selenium.security;
+
+import com.selenium.db.DB;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sliding-window counts of security log actions per action, per (user, action) and per (email, action),
+// kept in per-minute buckets so the fraud and login checks do not COUNT(*) over security_logs.
+// Fed by SecurityLogDAO as entries are logged, seeded from the table by bootstrap(). Counts cover
+// whole minutes: a window of N minutes is the current minute plus the N - 1 before it.
+// Off by default: counts only see this process's log calls, and every desktop client is its own process.
+public final class ActionCounterStore {
+
+    public record CounterStats(boolean ready, int keys, long recorded, long queries, long bootstrapRows) {}
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("security.counters.enabled", "false"));
+
+    private static final int MAX_MINUTES = Integer.getInteger("security.counters.maxMinutes", 24 * 60);
+
+    private static final String BOOTSTRAP_SQL = """
+            SELECT
+                action,
+                user_id,
+                LOWER(email) AS email,
+                FLOOR(EXTRACT(EPOCH FROM (now() - created_at)) / 60)::int AS minutes_ago,
+                COUNT(*) AS cnt
+            FROM security_logs
+            WHERE created_at >= now() - (? * INTERVAL '1 minute')
+              AND created_at < now() - (? * INTERVAL '1 millisecond')
+            GROUP BY 1, 2, 3, 4
+            ORDER BY minutes_ago DESC
+            """;
+
+    // exactly one of userId / email is set, or neither for the per-action total
+    private record Key(String action, long userId, String email) {}
+
+    private static final ActionCounterStore INSTANCE = new ActionCounterStore();
+
+    private final Map<Key, Counter> counters = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepMinute = new AtomicLong();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private volatile long bootstrapRows;
+
+    private volatile boolean ready;
+
+    private ActionCounterStore() {}
+
+    public static ActionCounterStore get() {
+        return INSTANCE;
+    }
+
+
+    // bootstrap() on a background thread, so the window query does not hold up startup
+    public void start() {
+        long startedNanos = System.nanoTime();
+
+        Thread t = new Thread(() -> {
+            try {
+                bootstrap(startedNanos);
+            } catch (SQLException ex) {
+                System.out.println("⚠ Action counters not loaded, counting from security_logs: " + ex.getMessage());
+            }
+        }, "security-counters-bootstrap");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // Loads the last maxMinutes of security_logs written before start(), by database clock; entries logged
+    // from then on are recorded as they happen. Until it has succeeded covers() is false and the
+    // callers keep querying the table.
+    public synchronized void bootstrap(long startedNanos) throws SQLException {
+        if (ready) return;
+
+        long now = currentMinute();
+        long rows = 0;
+
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(BOOTSTRAP_SQL)) {
+
+            ps.setInt(1, MAX_MINUTES);
+            ps.setLong(2, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Object uo = rs.getObject("user_id");
+                    Long userId = uo == null ? null : ((Number) uo).longValue();
+
+                    long minute = now - rs.getInt("minutes_ago");
+                    add(rs.getString("action"), userId, rs.getString("email"), minute, rs.getInt("cnt"));
+                    rows++;
+                }
+            }
+        }
+
+        bootstrapRows = rows;
+        ready = true;
+    }
+
+    public boolean covers(int minutesBack) {
+        return ready && minutesBack >= 1 && minutesBack <= MAX_MINUTES;
+    }
+
+
+    // action is expected normalized (trimmed, upper case), as SecurityLogDAO stores it
+    public void record(String action, Long userId, String email) {
+        add(action, userId, email == null ? null : email.toLowerCase(), currentMinute(), 1);
+        recorded.increment();
+    }
+
+    public int countAction(String action, int minutesBack) {
+        return count(new Key(action, 0, null), minutesBack);
+    }
+
+    public int countByUserAndAction(long userId, String action, int minutesBack) {
+        return count(new Key(action, userId, null), minutesBack);
+    }
+
+    public int countByEmailAndAction(String email, String action, int minutesBack) {
+        return count(new Key(action, 0, email.trim().toLowerCase()), minutesBack);
+    }
+
+
+    private void add(String action, Long userId, String email, long minute, int n) {
+        sweep(minute);
+
+        add(new Key(action, 0, null), minute, n);
+        if (userId != null) add(new Key(action, userId, null), minute, n);
+
+        if (email != null && !email.isBlank()) add(new Key(action, 0, email), minute, n);
+    }
+
+    // inside compute, so a concurrent sweep cannot drop the counter between lookup and add
+    private void add(Key key, long minute, int n) {
+        counters.compute(key, (k, c) -> {
+            if (c == null) c = new Counter();
+            c.add(minute, n);
+            return c;
+        });
+    }
+
+    private int count(Key key, int minutesBack) {
+        queries.increment();
+
+        Counter c = counters.get(key);
+        return c == null ? 0 : c.sum(currentMinute() - minutesBack + 1);
+    }
+
+    // once a minute, drops keys with nothing left in the window so per-user keys do not pile up
+    private void sweep(long minute) {
+        long last = lastSweepMinute.get();
+        if (minute <= last || !lastSweepMinute.compareAndSet(last, minute)) return;
+
+        long oldest = minute - MAX_MINUTES;
+        for (Key key : counters.keySet())
+            counters.computeIfPresent(key, (k, c) -> c.isIdle(oldest) ? null : c);
+    }
+
+    private static long currentMinute() {
+        return System.currentTimeMillis() / 60_000;
+    }
+
+
+    // non-empty minutes of one key, oldest first, in a ring that grows up to maxMinutes + 1 buckets
+    private static final class Counter {
+        private long[] minutes = new long[4];
+        private int[] counts = new int[4];
+        private int start;
+        private int size;
+
+        synchronized void add(long minute, int n) {
+            long newest = size == 0 ? minute : Math.max(minute, minutes[slot(size - 1)]);
+            long oldest = newest - MAX_MINUTES;
+            if (minute < oldest) return;
+
+            while (size > 0 && minutes[start] < oldest) {
+                start = (start + 1) % minutes.length;
+                size--;
+            }
+
+            // usually the newest bucket or a new one after it; bootstrap can arrive out of order
+            int k = size - 1;
+            while (k >= 0 && minutes[slot(k)] > minute) k--;
+
+            if (k >= 0 && minutes[slot(k)] == minute) {
+                counts[slot(k)] += n;
+                return;
+            }
+
+            if (size == minutes.length) grow();
+
+            for (int j = size; j > k + 1; j--) {
+                minutes[slot(j)] = minutes[slot(j - 1)];
+                counts[slot(j)] = counts[slot(j - 1)];
+            }
+            minutes[slot(k + 1)] = minute;
+            counts[slot(k + 1)] = n;
+            size++;
+        }
+
+        synchronized int sum(long fromMinute) {
+            int total = 0;
+            for (int k = size - 1; k >= 0 && minutes[slot(k)] >= fromMinute; k--)
+                total += counts[slot(k)];
+            return total;
+        }
+
+        synchronized boolean isIdle(long oldest) {
+            return size == 0 || minutes[slot(size - 1)] < oldest;
+        }
+
+        private int slot(int k) {
+            return (start + k) % minutes.length;
+        }
+
+        private void grow() {
+            long[] m = new long[Math.min(minutes.length * 2, MAX_MINUTES + 1)];
+            int[] c = new int[m.length];
+            for (int k = 0; k < size; k++) {
+                m[k] = minutes[slot(k)];
+                c[k] = counts[slot(k)];
+            }
+            minutes = m;
+            counts = c;
+            start = 0;
+        }
+    }
+
+
+    public CounterStats getStats() {
+        return new CounterStats(ready, counters.size(), recorded.sum(), queries.sum(), bootstrapRows);
+    }
+}
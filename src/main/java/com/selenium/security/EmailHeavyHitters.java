@@ -0,0 +1,277 @@
+package com.selenium.security;
+
+import com.selenium.dao.SecurityLogDAO.EmailCount;
+import com.selenium.db.DB;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Most frequent emails per action, for the security dashboard. Each action keeps a ring of time buckets,
+// and every bucket is a Space-Saving summary of at most capacity emails, so memory does not grow with
+// the number of distinct emails an attack uses. A window is answered by merging the buckets it covers.
+// Every email with more than 1/capacity of a bucket's events is guaranteed to be kept. Reported counts
+// are the guaranteed lower bound: an email that displaced another one may have had up to that one's
+// count before, so the true count is at most higher by the error it inherited.
+// Fed by SecurityLogDAO as entries are logged, seeded from the table by bootstrap(). Off by default
+// for the same reason as ActionCounterStore: it only sees this process's log calls.
+public final class EmailHeavyHitters {
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("security.topk.enabled", "false"));
+
+    private static final int MAX_MINUTES = Integer.getInteger("security.topk.maxMinutes", 24 * 60);
+    private static final int CAPACITY = Math.max(1, Integer.getInteger("security.topk.capacity", 100));
+    private static final int BUCKET_MINUTES = Math.max(1, Integer.getInteger("security.topk.bucketMinutes", 5));
+    private static final int BUCKETS = MAX_MINUTES / BUCKET_MINUTES + 2;
+
+    private static final String BOOTSTRAP_SQL = """
+            SELECT
+                action,
+                LOWER(email) AS email,
+                FLOOR(EXTRACT(EPOCH FROM (now() - created_at)) / 60)::int AS minutes_ago,
+                COUNT(*) AS cnt,
+                MAX(created_at) AS last_at
+            FROM security_logs
+            WHERE created_at >= now() - (? * INTERVAL '1 minute')
+              AND created_at < now() - (? * INTERVAL '1 millisecond')
+              AND COALESCE(email, '') <> ''
+            GROUP BY 1, 2, 3
+            """;
+
+    private static final EmailHeavyHitters INSTANCE = new EmailHeavyHitters();
+
+    private final Map<String, ActionSketch> actions = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    private EmailHeavyHitters() {}
+
+    public static EmailHeavyHitters get() {
+        return INSTANCE;
+    }
+
+
+    // bootstrap() on a background thread, so the window query does not hold up startup
+    public void start() {
+        long startedNanos = System.nanoTime();
+
+        Thread t = new Thread(() -> {
+            try {
+                bootstrap(startedNanos);
+            } catch (SQLException ex) {
+                System.out.println("⚠ Top emails not loaded, grouping security_logs: " + ex.getMessage());
+            }
+        }, "security-topk-bootstrap");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // Loads the last maxMinutes of security_logs written before start(), by database clock; entries logged
+    // from then on are recorded as they happen. Until it has succeeded covers() is false and the
+    // DAO keeps grouping the table.
+    public synchronized void bootstrap(long startedNanos) throws SQLException {
+        if (ready) return;
+
+        long now = System.currentTimeMillis() / 60_000;
+
+        try (Connection con = DB.getConnection();
+             PreparedStatement ps = con.prepareStatement(BOOTSTRAP_SQL)) {
+
+            ps.setInt(1, MAX_MINUTES);
+            ps.setLong(2, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long minute = now - rs.getInt("minutes_ago");
+                    record(rs.getString("action"), rs.getString("email"), minute, rs.getInt("cnt"),
+                            rs.getTimestamp("last_at").getTime());
+                }
+            }
+        }
+
+        ready = true;
+    }
+
+    public boolean covers(int minutesBack) {
+        return ready && minutesBack >= 1 && minutesBack <= MAX_MINUTES;
+    }
+
+
+    // action is expected normalized (trimmed, upper case), as SecurityLogDAO stores it
+    public void record(String action, String email) {
+        if (email == null || email.isBlank()) return;
+
+        long now = System.currentTimeMillis();
+        record(action, email.toLowerCase(), now / 60_000, 1, now);
+    }
+
+    private void record(String action, String email, long minute, int n, long atMs) {
+        actions.computeIfAbsent(action, a -> new ActionSketch()).record(email, minute / BUCKET_MINUTES, n, atMs);
+    }
+
+    // top emails of the last minutesBack minutes, rounded up to whole buckets
+    public List<EmailCount> top(String action, int minutesBack, int limit) {
+        ActionSketch sketch = actions.get(action);
+        if (sketch == null) return List.of();
+
+        long now = System.currentTimeMillis() / 60_000;
+        return sketch.top((now - minutesBack + 1) / BUCKET_MINUTES, now / BUCKET_MINUTES, limit);
+    }
+
+
+    private static final class Counted {
+        long count;
+        long error;
+        long lastAtMs;
+
+        // inside a Summary: its key and its position in the heap
+        String email;
+        int slot;
+
+        long guaranteed() {
+            return count - error;
+        }
+    }
+
+    private static final class ActionSketch {
+        private final long[] bucketIds = new long[BUCKETS];
+        private final Summary[] summaries = new Summary[BUCKETS];
+
+        ActionSketch() {
+            for (int i = 0; i < BUCKETS; i++) {
+                bucketIds[i] = -1;
+                summaries[i] = new Summary();
+            }
+        }
+
+        synchronized void record(String email, long bucket, int n, long atMs) {
+            int slot = (int) (bucket % BUCKETS);
+
+            if (bucketIds[slot] != bucket) {
+                // late arrival for a bucket that was already reused
+                if (bucket < bucketIds[slot]) return;
+
+                bucketIds[slot] = bucket;
+                summaries[slot].clear();
+            }
+            summaries[slot].offer(email, n, atMs);
+        }
+
+        synchronized List<EmailCount> top(long fromBucket, long toBucket, int limit) {
+            Map<String, Counted> merged = new HashMap<>();
+
+            for (long b = Math.max(fromBucket, toBucket - BUCKETS + 1); b <= toBucket; b++) {
+                int slot = (int) (b % BUCKETS);
+                if (bucketIds[slot] != b) continue;
+
+                for (Map.Entry<String, Counted> e : summaries[slot].entries.entrySet()) {
+                    Counted m = merged.computeIfAbsent(e.getKey(), k -> new Counted());
+                    m.count += e.getValue().count;
+                    m.error += e.getValue().error;
+                    m.lastAtMs = Math.max(m.lastAtMs, e.getValue().lastAtMs);
+                }
+            }
+
+            // ranked by the guaranteed part of the count, so emails that only inherited a large error stay low
+            List<Map.Entry<String, Counted>> ranked = new ArrayList<>(merged.entrySet());
+            ranked.sort((a, b) -> a.getValue().guaranteed() != b.getValue().guaranteed()
+                    ? Long.compare(b.getValue().guaranteed(), a.getValue().guaranteed())
+                    : Long.compare(b.getValue().lastAtMs, a.getValue().lastAtMs));
+
+            List<EmailCount> out = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (Map.Entry<String, Counted> e : ranked) {
+                if (out.size() == limit) break;
+                out.add(new EmailCount(e.getKey(), (int) e.getValue().guaranteed(), toLocal(e.getValue().lastAtMs)));
+            }
+            return out;
+        }
+    }
+
+    // Space-Saving: a new email replaces the one with the smallest count and inherits that count as its error.
+    // Entries are also kept in a min-heap on count, so that one is always at the root.
+    private static final class Summary {
+        private final Map<String, Counted> entries = new HashMap<>();
+        private final Counted[] heap = new Counted[CAPACITY];
+        private int size;
+
+        void offer(String email, int n, long atMs) {
+            Counted c = entries.get(email);
+
+            if (c == null && size < CAPACITY) {
+                c = new Counted();
+                c.email = email;
+                c.count = n;
+                c.lastAtMs = atMs;
+                c.slot = size;
+                heap[size++] = c;
+                entries.put(email, c);
+                siftUp(c.slot);
+                return;
+            }
+
+            if (c == null) {
+                c = heap[0];
+                entries.remove(c.email);
+                c.email = email;
+                c.error = c.count;
+                c.lastAtMs = 0;
+                entries.put(email, c);
+            }
+
+            // counts only grow, so the entry can only move away from the root
+            c.count += n;
+            c.lastAtMs = Math.max(c.lastAtMs, atMs);
+            siftDown(c.slot);
+        }
+
+        void clear() {
+            entries.clear();
+            Arrays.fill(heap, 0, size, null);
+            size = 0;
+        }
+
+        private void siftUp(int i) {
+            Counted c = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (heap[parent].count <= c.count) break;
+                place(heap[parent], i);
+                i = parent;
+            }
+            place(c, i);
+        }
+
+        private void siftDown(int i) {
+            Counted c = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1].count < heap[child].count) child++;
+                if (c.count <= heap[child].count) break;
+                place(heap[child], i);
+                i = child;
+            }
+            place(c, i);
+        }
+
+        private void place(Counted c, int i) {
+            heap[i] = c;
+            c.slot = i;
+        }
+    }
+
+    private static LocalDateTime toLocal(long ms) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(ms), ZoneId.systemDefault());
+    }
+}
@@ -1,11 +1,15 @@
 package com.selenium.ui;
 
 import com.selenium.Main;
+import com.selenium.dao.AsyncSeatDAO;
+import com.selenium.dao.DaoExecutor;
 import com.selenium.dao.EventDAO;
+import com.selenium.dao.SeatBulkLoader;
 import com.selenium.dao.SeatDAO;
 import com.selenium.dao.SecurityLogDAO;
 import com.selenium.model.Event;
 import com.selenium.model.User;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
@@ -19,6 +23,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class AdminEventView {
@@ -99,6 +104,7 @@ public class AdminEventView {
         SecurityLogDAO logDao = new SecurityLogDAO();
         EventDAO eventDAO = new EventDAO();
         SeatDAO seatDAO = new SeatDAO();
+        AsyncSeatDAO asyncSeatDAO = new AsyncSeatDAO(seatDAO);
 
         Label titleLbl = new Label("Admin Panel (Create / Delete events)");
         titleLbl.setStyle(LABEL_TXT + "-fx-font-size: 16px; -fx-font-weight: 800;");
@@ -221,6 +227,10 @@ public class AdminEventView {
         reload.run();
 
 
+        // COPY progress arrives from the loader threads, once per chunk
+        SeatBulkLoader.ProgressListener progress = (step, done, total) -> Platform.runLater(() ->
+                msg.setText("Loading " + step + " – " + done + " / " + total + " rows"));
+
         createBtn.setOnAction(e -> {
             try {
                 long venueId = Long.parseLong(venueIdField.getText().trim());
@@ -246,19 +256,35 @@ public class AdminEventView {
                         "eventId=" + eventId + " venueId=" + venueId + " title=" + t.trim());
 
                 int seatCount = seatDAO.countSeatsInVenue(venueId);
+
+                CompletableFuture<Integer> generated = CompletableFuture.completedFuture(0);
                 if (seatCount == 0) {
-                    String section = sectionField.getText().trim();
+                    List<String> sections = Arrays.stream(sectionField.getText().split(","))
+                            .map(String::trim).filter(s -> !s.isBlank()).collect(Collectors.toList());
+                    if (sections.isEmpty()) sections = List.of("");
                     List<String> rows = Arrays.stream(rowsField.getText().split(","))
                             .map(String::trim).filter(s -> !s.isBlank()).collect(Collectors.toList());
                     int seatsPerRow = Integer.parseInt(seatsPerRowField.getText().trim());
 
-                    int inserted = seatDAO.generateSeatsForVenue(venueId, section, rows, seatsPerRow);
-                    msg.setText("Venue had 0 seats -> generated seats: " + inserted);
+                    generated = asyncSeatDAO.generateSeatsForVenue(venueId, sections, rows, seatsPerRow, progress);
                 }
 
-                int attached = seatDAO.attachVenueSeatsToEvent(eventId, venueId, price);
-                msg.setText("✅ Event created (ID=" + eventId + "). Attached seats: " + attached);
-                reload.run();
+                createBtn.setDisable(true);
+
+                generated
+                        .thenCompose(inserted -> asyncSeatDAO.attachVenueSeatsToEvent(eventId, venueId, price, progress))
+                        .whenComplete((attached, ex) -> Platform.runLater(() -> {
+                            createBtn.setDisable(false);
+                            if (ex != null) {
+                                String m = DaoExecutor.message(ex);
+                                msg.setText("Error: " + m);
+                                logDao.log("ERROR", "ADMIN_CREATE_EVENT_ERROR", admin.getUserId(), admin.getEmail(),
+                                        "msg=" + m);
+                                return;
+                            }
+                            msg.setText("✅ Event created (ID=" + eventId + "). Attached seats: " + attached);
+                            reload.run();
+                        }));
 
             } catch (Exception ex) {
                 ex.printStackTrace();
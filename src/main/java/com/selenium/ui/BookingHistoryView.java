@@ -1,10 +1,14 @@
 package com.selenium.ui;
 
 import com.selenium.Main;
+import com.selenium.dao.AsyncBookingDAO;
 import com.selenium.dao.BookingDAO;
+import com.selenium.dao.DaoExecutor;
+import com.selenium.inventory.HoldLeaseManager;
 import com.selenium.model.BookingHistoryItem;
 import com.selenium.model.User;
 import com.selenium.payment.PaymentService;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -20,7 +24,6 @@ import javafx.stage.Stage;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 public class BookingHistoryView {
 
@@ -48,16 +51,17 @@ public class BookingHistoryView {
         """);
 
         BookingDAO dao = new BookingDAO();
+        AsyncBookingDAO asyncDao = new AsyncBookingDAO(dao);
 
-        Runnable reload = () -> {
-            try {
-                List<BookingHistoryItem> rows = dao.getBookingHistory(user.getUserId());
-                list.setItems(FXCollections.observableArrayList(rows));
-                msg.setText(rows.isEmpty() ? "No bookings yet." : "");
-            } catch (Exception ex) {
-                msg.setText("Error: " + ex.getMessage());
-            }
-        };
+        Runnable reload = () -> asyncDao.getBookingHistory(user.getUserId())
+                .whenComplete((rows, ex) -> Platform.runLater(() -> {
+                    if (ex != null) {
+                        msg.setText("Error: " + DaoExecutor.message(ex));
+                        return;
+                    }
+                    list.setItems(FXCollections.observableArrayList(rows));
+                    msg.setText(rows.isEmpty() ? "No bookings yet." : "");
+                }));
 
         list.setCellFactory(lv -> new ListCell<>() {
             @Override
@@ -122,7 +126,9 @@ public class BookingHistoryView {
                             return;
                         }
 
-                        PaymentService.PaymentResult pr = PaymentDialog.show("MockPay", item.getPrice());
+                        PaymentService.PaymentResult pr = PaymentDialog.show("MockPay", item.getPrice(),
+                                () -> HoldLeaseManager.get().renew(user.getUserId(), item.getBookingId()),
+                                HoldLeaseManager.heartbeatMs());
                         if (!pr.approved()) {
                             msg.setText("Payment cancelled.");
                             return;
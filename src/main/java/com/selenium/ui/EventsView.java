@@ -1,11 +1,13 @@
 package com.selenium.ui;
 
 import com.selenium.Main;
-import com.selenium.dao.EventDAO;
+import com.selenium.dao.AsyncEventDAO;
+import com.selenium.dao.DaoExecutor;
 import com.selenium.model.Event;
 import com.selenium.model.User;
 import com.selenium.search.LuceneEventIndexer;
 import com.selenium.search.LuceneSearchService;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -20,6 +22,7 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class EventsView {
@@ -31,7 +34,7 @@ public class EventsView {
         User currentUser = Main.getCurrentUser();
         boolean isAdmin = currentUser != null && "ADMIN".equalsIgnoreCase(currentUser.getRole());
 
-        EventDAO dao = new EventDAO();
+        AsyncEventDAO asyncDao = new AsyncEventDAO();
 
 
         TextField searchField = new TextField();
@@ -80,34 +83,6 @@ public class EventsView {
         };
 
 
-        Runnable loadAllEvents = () -> {
-            try {
-                List<Event> allEvents = dao.getActiveEvents();
-                allEventsRef[0] = allEvents;
-                buildIndex.run();
-                msg.setText("Loaded " + allEvents.size() + " active event(s).");
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                msg.setText("Error loading events: " + ex.getMessage());
-            }
-        };
-
-
-        Runnable loadRecommendations = () -> {
-            try {
-                User u = Main.getCurrentUser();
-                if (u == null) {
-                    recEventsRef[0] = List.of();
-                    return;
-                }
-                recEventsRef[0] = dao.getRecommendedEventsForUser(u.getUserId(), 10);
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                recEventsRef[0] = List.of();
-            }
-        };
-
-
         Runnable renderHome = () -> {
             content.getChildren().clear();
 
@@ -147,6 +122,34 @@ public class EventsView {
         };
 
 
+        java.util.function.Consumer<String> loadHome = doneText -> {
+            User u = Main.getCurrentUser();
+
+            CompletableFuture<List<Event>> eventsF = asyncDao.getActiveEvents();
+            CompletableFuture<List<Event>> recsF = (u == null)
+                    ? CompletableFuture.completedFuture(List.of())
+                    : asyncDao.getRecommendedEventsForUser(u.getUserId(), 10)
+                        .exceptionally(ex -> {
+                            ex.printStackTrace();
+                            return List.of();
+                        });
+
+            eventsF.thenAcceptBoth(recsF, (allEvents, rec) -> Platform.runLater(() -> {
+                allEventsRef[0] = allEvents;
+                recEventsRef[0] = rec;
+                buildIndex.run();
+                renderHome.run();
+                msg.setText(doneText != null ? doneText : "Loaded " + allEvents.size() + " active event(s).");
+            })).exceptionally(ex -> {
+                Platform.runLater(() -> {
+                    ex.printStackTrace();
+                    msg.setText("Error loading events: " + DaoExecutor.message(ex));
+                });
+                return null;
+            });
+        };
+
+
         java.util.function.BiConsumer<String, List<Event>> renderSearchOnly = (query, results) -> {
             content.getChildren().clear();
 
@@ -214,16 +217,14 @@ public class EventsView {
 
         Runnable doRefresh = () -> {
             searchField.clear();
-            loadAllEvents.run();
-            loadRecommendations.run();
-            renderHome.run();
-            msg.setText("Refreshed events & recommendations.");
+            msg.setText("Refreshing...");
+            loadHome.accept("Refreshed events & recommendations.");
         };
 
 
-        loadAllEvents.run();
-        loadRecommendations.run();
         renderHome.run();
+        msg.setText("Loading events...");
+        loadHome.accept(null);
 
         myBookingsBtn.setOnAction(e -> Main.showBookingHistoryView());
         logoutBtn.setOnAction(e -> Main.logout());
@@ -22,6 +22,12 @@ import java.util.concurrent.ThreadLocalRandom;
 public class PaymentDialog {
 
     public static PaymentService.PaymentResult show(String provider, BigDecimal amount) {
+        return show(provider, amount, null, 0);
+    }
+
+    // heartbeat runs on open and every heartbeatMs while the dialog is showing, e.g. to keep a seat hold alive
+    public static PaymentService.PaymentResult show(String provider, BigDecimal amount,
+                                                    Runnable heartbeat, long heartbeatMs) {
 
         Stage dialog = new Stage();
         dialog.initModality(Modality.APPLICATION_MODAL);
@@ -263,9 +269,19 @@ public class PaymentDialog {
             dialog.close();
         });
 
+        Timeline keepAlive = new Timeline();
+        if (heartbeat != null) {
+            heartbeat.run();
+            keepAlive.getKeyFrames().add(new KeyFrame(Duration.millis(heartbeatMs), ev -> heartbeat.run()));
+            keepAlive.setCycleCount(Animation.INDEFINITE);
+            keepAlive.play();
+        }
+
         dialog.setScene(scene);
         dialog.showAndWait();
 
+        keepAlive.stop();
+
         return result[0];
     }
 
@@ -1,11 +1,23 @@
 package com.selenium.ui;
 
 import com.selenium.Main;
-import com.selenium.dao.BookingDAO;
-import com.selenium.dao.SeatDAO;
+import com.selenium.admission.AdmissionController;
+import com.selenium.admission.AsyncAdmissionController;
+import com.selenium.dao.AsyncBookingDAO;
+import com.selenium.dao.AsyncSeatDAO;
+import com.selenium.dao.DaoExecutor;
+import com.selenium.inventory.SeatChangeFeed;
 import com.selenium.model.Event;
 import com.selenium.model.SeatInfo;
 import com.selenium.model.User;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
+import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -14,13 +26,21 @@ import javafx.scene.effect.DropShadow;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
+import javafx.util.Duration;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class SeatSelectionView {
 
+    private static final AsyncAdmissionController ADMISSION = new AsyncAdmissionController();
+
     private static String euro(BigDecimal price) {
         if (price == null) return "€0.00";
         return "€" + price.setScale(2, RoundingMode.HALF_UP).toPlainString();
@@ -28,6 +48,134 @@ public class SeatSelectionView {
 
     public void show(Stage stage, User user, Event event, Runnable onBack) {
 
+        if (!AdmissionController.ENABLED) {
+            showSeats(stage, user, event, onBack);
+            return;
+        }
+
+        long eventId = event.getEventId();
+        long userId = user.getUserId();
+
+        Label title = new Label("⏳ Waiting room: " + event.getTitle());
+        title.setStyle("""
+            -fx-font-size: 20px;
+            -fx-font-weight: 900;
+            -fx-text-fill: #EAF2FF;
+        """);
+
+        Label info = new Label("Joining the waiting room…");
+        info.setStyle("-fx-text-fill: rgba(234,242,255,0.80); -fx-font-weight: 700;");
+
+        Timeline poll = new Timeline();
+        boolean[] admitted = {false};
+        boolean[] left = {false};
+        // one admission call at a time; a slow one skips poll ticks instead of piling up
+        boolean[] inFlight = {false};
+
+        Consumer<AdmissionController.Status> apply = st -> {
+            if (st.admitted()) {
+                admitted[0] = true;
+                poll.stop();
+                showAdmitted(stage, user, event, onBack);
+                return;
+            }
+
+            long etaSec = Math.max(1, st.etaMs() / 1000);
+            info.setText("You are number " + st.position() + " in line. Estimated wait: "
+                    + (etaSec >= 60 ? (etaSec / 60) + " min" : etaSec + " s"));
+        };
+
+        // a call that finishes after the user left may have joined or admitted them: hand that back
+        Runnable join = () -> {
+            inFlight[0] = true;
+            ADMISSION.enter(eventId, userId)
+                    .whenComplete((st, ex) -> Platform.runLater(() -> {
+                        inFlight[0] = false;
+
+                        if (left[0]) {
+                            if (ex == null && !admitted[0]) leaveQuietly(eventId, userId);
+                            return;
+                        }
+                        if (ex != null) {
+                            ex.printStackTrace();
+                            info.setText("Could not join the waiting room, retrying: " + DaoExecutor.message(ex));
+                            return;
+                        }
+                        apply.accept(st);
+                    }));
+        };
+
+        Runnable refresh = () -> {
+            if (inFlight[0]) return;
+            inFlight[0] = true;
+
+            ADMISSION.status(eventId, userId)
+                    .whenComplete((st, ex) -> Platform.runLater(() -> {
+                        inFlight[0] = false;
+
+                        if (left[0]) {
+                            if (ex == null && st.admitted() && !admitted[0]) leaveQuietly(eventId, userId);
+                            return;
+                        }
+                        if (ex != null) {
+                            info.setText("Waiting room unavailable, retrying: " + DaoExecutor.message(ex));
+                            return;
+                        }
+                        if (st.ticketId() == 0) {
+                            // not queued yet, or lost the place (app was idle too long): queue again at the back
+                            join.run();
+                            return;
+                        }
+                        apply.accept(st);
+                    }));
+        };
+
+        poll.getKeyFrames().add(new KeyFrame(Duration.seconds(1), e -> refresh.run()));
+        poll.setCycleCount(Animation.INDEFINITE);
+
+        Button backBtn = new Button("Leave Queue");
+        backBtn.setOnAction(e -> onBack.run());
+
+        VBox content = new VBox(16, title, info, backBtn);
+        content.setAlignment(Pos.CENTER);
+        content.setPadding(new Insets(16));
+
+        StackPane mainLayout = new StackPane(content);
+        mainLayout.setStyle("""
+            -fx-background-color:
+                radial-gradient(radius 120%, rgba(90,160,255,0.18), transparent),
+                linear-gradient(to bottom right, #050b18, #081a33, #02050d);
+        """);
+
+        Scene scene = new Scene(mainLayout, 1200, 720);
+        Main.setupStage(stage, scene, "Ticket Booking System - Waiting Room");
+
+        // leaving the waiting room any way other than being admitted gives up the place
+        onLeave(stage, scene, () -> {
+            poll.stop();
+            left[0] = true;
+            if (!admitted[0]) leaveQuietly(eventId, userId);
+        });
+
+        join.run();
+        poll.play();
+    }
+
+    // the admission is handed back whenever the seat screen is left, not only through Back
+    private void showAdmitted(Stage stage, User user, Event event, Runnable onBack) {
+        showSeats(stage, user, event, onBack);
+        onLeave(stage, stage.getScene(), () -> leaveQuietly(event.getEventId(), user.getUserId()));
+    }
+
+    private static void leaveQuietly(long eventId, long userId) {
+        ADMISSION.leave(eventId, userId).whenComplete((v, ex) -> {
+            // the admission runs out on its own after admission.ticketTtlMs
+            if (ex != null) System.out.println("⚠ Waiting room not left: " + DaoExecutor.message(ex));
+        });
+    }
+
+    private void showSeats(Stage stage, User user, Event event, Runnable onBack) {
+
         Label title = new Label("🎟 Seats for: " + event.getTitle());
         title.setStyle("""
             -fx-font-size: 20px;
@@ -41,17 +189,37 @@ public class SeatSelectionView {
         ListView<SeatInfo> seatList = new ListView<>();
         seatList.setStyle("-fx-background-color: transparent;");
 
-        SeatDAO dao = new SeatDAO();
+        AsyncSeatDAO dao = new AsyncSeatDAO();
 
-        Runnable reload = () -> {
-            try {
-                List<SeatInfo> seats = dao.getSeatsForEvent(event.getEventId());
-                seatList.getItems().setAll(seats);
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                msg.setText("Error: " + ex.getMessage());
-            }
-        };
+        // version of the last seat list applied; only what changed since is fetched
+        long[] seatVersion = {0};
+
+        Runnable reload = () -> dao.getSeatChangesSince(event.getEventId(), seatVersion[0])
+                .whenComplete((delta, ex) -> Platform.runLater(() -> {
+                    if (ex != null) {
+                        ex.printStackTrace();
+                        msg.setText("Error: " + DaoExecutor.message(ex));
+                        return;
+                    }
+
+                    if (delta.isSnapshot()) seatList.getItems().setAll(delta.getSeats());
+                    else applySeats(seatList, delta.getSeats());
+
+                    seatVersion[0] = delta.getVersion();
+                }));
+
+        SeatChangeFeed.Subscription feed = SeatChangeFeed.get().subscribe(event.getEventId(),
+                new SeatChangeFeed.Listener() {
+                    @Override
+                    public void onChange(SeatChangeFeed.SeatChange change) {
+                        Platform.runLater(() -> applyChange(seatList, change));
+                    }
+
+                    @Override
+                    public void onResync() {
+                        reload.run();
+                    }
+                });
 
         seatList.setCellFactory(lv -> new ListCell<>() {
             @Override
@@ -105,17 +273,81 @@ public class SeatSelectionView {
 
         reload.run();
 
+        Spinner<Integer> countSpinner = new Spinner<>(1, 10, 2);
+        countSpinner.setPrefWidth(80);
+
+        ComboBox<String> sectionBox = new ComboBox<>();
+        sectionBox.setPromptText("Any section");
+
+        TextField maxPriceField = new TextField();
+        maxPriceField.setPromptText("Max price");
+        maxPriceField.setPrefWidth(110);
+
+        dao.getSectionsForEvent(event.getEventId())
+                .whenComplete((sections, ex) -> Platform.runLater(() -> {
+                    if (ex == null) sectionBox.getItems().setAll(sections);
+                }));
+
+        Button findBtn = new Button("Find Best Seats");
+
+        findBtn.setOnAction(e -> {
+            BigDecimal maxPrice = null;
+            String priceText = maxPriceField.getText().trim();
+
+            if (!priceText.isEmpty()) {
+                try {
+                    maxPrice = new BigDecimal(priceText.replace(',', '.'));
+                } catch (NumberFormatException ex) {
+                    msg.setText("Max price must be a number.");
+                    return;
+                }
+            }
+
+            int count = countSpinner.getValue();
+
+            dao.findBestAvailable(event.getEventId(), count, sectionBox.getValue(), maxPrice)
+                    .whenComplete((found, ex) -> Platform.runLater(() -> {
+                        if (ex != null) {
+                            ex.printStackTrace();
+                            msg.setText("Error: " + DaoExecutor.message(ex));
+                            return;
+                        }
+                        if (found.isEmpty()) {
+                            msg.setText("No " + count + " adjacent seats available.");
+                            return;
+                        }
+
+                        var selection = seatList.getSelectionModel();
+                        selection.clearSelection();
+
+                        var items = seatList.getItems();
+                        for (SeatInfo f : found) {
+                            for (int i = 0; i < items.size(); i++) {
+                                if (items.get(i).getSeatId() == f.getSeatId()) {
+                                    selection.select(i);
+                                    break;
+                                }
+                            }
+                        }
+
+                        seatList.scrollTo(selection.getSelectedIndex());
+                        msg.setText("Found " + found.get(0).getLabel() + " – " + found.get(found.size() - 1).getLabel());
+                    }));
+        });
+
         Button bookBtn = new Button("Book Selected Seat");
         Button backBtn = new Button("Back");
 
         bookBtn.setDisable(true);
 
-        seatList.getSelectionModel().selectedItemProperty().addListener((obs, o, n) -> {
-            if (n == null) {
-                bookBtn.setDisable(true);
-                return;
-            }
-            bookBtn.setDisable(!"AVAILABLE".equalsIgnoreCase(n.getState()));
+        seatList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
+        seatList.getSelectionModel().getSelectedItems().addListener((ListChangeListener<SeatInfo>) c -> {
+            var selected = seatList.getSelectionModel().getSelectedItems();
+
+            bookBtn.setText(selected.size() > 1 ? "Book " + selected.size() + " Seats" : "Book Selected Seat");
+            bookBtn.setDisable(selected.isEmpty() ||
+                    !selected.stream().allMatch(s -> s != null && "AVAILABLE".equalsIgnoreCase(s.getState())));
         });
 
         bookBtn.setOnAction(e -> {
@@ -126,31 +358,46 @@ public class SeatSelectionView {
                 return;
             }
 
-            SeatInfo selected = seatList.getSelectionModel().getSelectedItem();
-            if (selected == null) return;
-
-            try {
-                BookingDAO bookingDAO = new BookingDAO();
-
-                long bookingId = bookingDAO.bookSingleSeat(
-                        user,
-                        event.getEventId(),
-                        selected.getSeatId(),
-                        selected.getPrice()
-                );
-
-                msg.setText("✅ Seat booked. ID: " + bookingId);
+            List<SeatInfo> selected = List.copyOf(seatList.getSelectionModel().getSelectedItems());
+            if (selected.isEmpty()) return;
+
+            bookBtn.setDisable(true);
+
+            AsyncBookingDAO bookingDao = new AsyncBookingDAO();
+
+            CompletableFuture<Long> booking = selected.size() == 1
+                    ? bookingDao.bookSingleSeat(
+                            user,
+                            event.getEventId(),
+                            selected.get(0).getSeatId(),
+                            selected.get(0).getPrice())
+                    : bookingDao.bookSeats(
+                            user,
+                            event.getEventId(),
+                            selected.stream().map(SeatInfo::getSeatId).toList());
+
+            booking.whenComplete((bookingId, ex) -> Platform.runLater(() -> {
+                if (ex != null) {
+                    ex.printStackTrace();
+                    msg.setText("Error: " + DaoExecutor.message(ex));
+                } else if (selected.size() == 1) {
+                    msg.setText("✅ Seat booked. ID: " + bookingId);
+                } else {
+                    msg.setText("✅ " + selected.size() + " seats booked. ID: " + bookingId);
+                }
                 reload.run();
+            }));
+        });
 
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                msg.setText("Error: " + ex.getMessage());
-            }
+        backBtn.setOnAction(e -> {
+            feed.close();
+            onBack.run();
         });
 
-        backBtn.setOnAction(e -> onBack.run());
+        Region actionsSpacer = new Region();
+        HBox.setHgrow(actionsSpacer, Priority.ALWAYS);
 
-        HBox actions = new HBox(12, bookBtn, backBtn);
+        HBox actions = new HBox(12, countSpinner, sectionBox, maxPriceField, findBtn, actionsSpacer, bookBtn, backBtn);
         actions.setAlignment(Pos.CENTER_RIGHT);
 
         VBox content = new VBox(12, title, seatList, actions, msg);
@@ -180,6 +427,60 @@ public class SeatSelectionView {
 
         Scene scene = new Scene(mainLayout, 1200, 720);
         Main.setupStage(stage, scene, "Ticket Booking System - Seats");
+
+        // logout or any other view replacing this one must stop the feed too, not only Back
+        onLeave(stage, scene, feed::close);
+    }
+
+    // runs once, when the stage shows another scene or the window is hidden
+    private static void onLeave(Stage stage, Scene scene, Runnable cleanup) {
+        final class Leave implements ChangeListener<Scene>, EventHandler<WindowEvent> {
+            @Override
+            public void changed(ObservableValue<? extends Scene> obs, Scene old, Scene now) {
+                if (now != scene) detach();
+            }
+
+            @Override
+            public void handle(WindowEvent e) {
+                detach();
+            }
+
+            private void detach() {
+                stage.sceneProperty().removeListener(this);
+                stage.removeEventHandler(WindowEvent.WINDOW_HIDDEN, this);
+                cleanup.run();
+            }
+        }
+
+        Leave leave = new Leave();
+        stage.sceneProperty().addListener(leave);
+        stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, leave);
+    }
+
+    private static void applySeats(ListView<SeatInfo> seatList, List<SeatInfo> changed) {
+        if (changed.isEmpty()) return;
+
+        Map<Long, SeatInfo> byId = new HashMap<>();
+        for (SeatInfo s : changed) byId.put(s.getSeatId(), s);
+
+        var items = seatList.getItems();
+        for (int i = 0; i < items.size() && !byId.isEmpty(); i++) {
+            SeatInfo s = byId.remove(items.get(i).getSeatId());
+            if (s != null) items.set(i, s);
+        }
+    }
+
+    private static void applyChange(ListView<SeatInfo> seatList, SeatChangeFeed.SeatChange change) {
+        var items = seatList.getItems();
+
+        for (int i = 0; i < items.size(); i++) {
+            SeatInfo s = items.get(i);
+            if (s.getSeatId() != change.seatId()) continue;
+
+            if (!s.getState().equalsIgnoreCase(change.state()))
+                items.set(i, new SeatInfo(s.getSeatId(), s.getLabel(), s.getPrice(), change.state()));
+            return;
+        }
     }
 
     private void showSecurityBlockedPopup(Stage owner) {
@@ -112,10 +112,10 @@ public class SecurityDashboardView {
             try {
                 int minutes = parseInt(minutesField.getText(), 60);
 
-                int loginFail = countAction("LOGIN_FAIL", minutes);
-                int bookFail = countAction("BOOK_FAIL", minutes);
-                int bookBlocked = countAction("BOOK_BLOCKED", minutes);
-                int payFail = countAction("PAY_FAIL", minutes);
+                int loginFail = dao.countAction("LOGIN_FAIL", minutes);
+                int bookFail = dao.countAction("BOOK_FAIL", minutes);
+                int bookBlocked = dao.countAction("BOOK_BLOCKED", minutes);
+                int payFail = dao.countAction("PAY_FAIL", minutes);
 
                 kpiLoginFail.setText(String.valueOf(loginFail));
                 kpiBookFail.setText(String.valueOf(bookFail));
@@ -313,23 +313,4 @@ public class SecurityDashboardView {
             return def;
         }
     }
-
-    private int countAction(String action, int minutesBack) throws Exception {
-        String sql = """
-                SELECT COUNT(*)
-                FROM security_logs
-                WHERE action = ?
-                  AND created_at >= now() - (? * INTERVAL '1 minute')
-                """;
-
-        try (var con = com.selenium.db.DB.getConnection();
-             var ps = con.prepareStatement(sql)) {
-            ps.setString(1, action.trim().toUpperCase());
-            ps.setInt(2, minutesBack);
-            try (var rs = ps.executeQuery()) {
-                rs.next();
-                return rs.getInt(1);
-            }
-        }
-    }
 }
\ No newline at end of file
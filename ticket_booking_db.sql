@@ -2603,6 +2603,284 @@ ALTER TABLE ONLY public.security_logs
     ADD CONSTRAINT security_logs_user_id_fkey FOREIGN KEY (user_id) REFERENCES public.users(user_id);
 
 
+--
+-- Migration: seat state change feed
+-- Every state transition on event_seats gets a new version from a global
+-- sequence (monotonic per event) and is published on channel seat_changes
+-- as "event_id,seat_id,state,version".
+--
+
+CREATE SEQUENCE IF NOT EXISTS public.event_seats_version_seq;
+
+ALTER TABLE public.event_seats
+    ADD COLUMN IF NOT EXISTS version bigint DEFAULT nextval('public.event_seats_version_seq'::regclass) NOT NULL;
+
+CREATE OR REPLACE FUNCTION public.event_seats_bump_version() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    IF NEW.state IS DISTINCT FROM OLD.state THEN
+        NEW.version := nextval('public.event_seats_version_seq');
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION public.event_seats_notify() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    PERFORM pg_notify('seat_changes',
+            NEW.event_id || ',' || NEW.seat_id || ',' || NEW.state || ',' || NEW.version);
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE TRIGGER trg_event_seats_version
+    BEFORE UPDATE OF state ON public.event_seats
+    FOR EACH ROW EXECUTE FUNCTION public.event_seats_bump_version();
+
+CREATE OR REPLACE TRIGGER trg_event_seats_notify
+    AFTER UPDATE OF state ON public.event_seats
+    FOR EACH ROW
+    WHEN (OLD.state IS DISTINCT FROM NEW.state)
+    EXECUTE FUNCTION public.event_seats_notify();
+
+
+--
+-- Migration: hold expiry reaper
+-- Lets the reaper find held seats by expiry without scanning event_seats.
+--
+
+CREATE INDEX IF NOT EXISTS idx_event_seats_hold_expiry
+    ON public.event_seats USING btree (hold_expires_at)
+    WHERE ((state)::text = 'HELD'::text);
+
+
+--
+-- Migration: partition event_seats by event
+-- event_seats is hash partitioned on event_id, so every lookup that names the
+-- event touches one partition, with indexes a sixteenth the size, and vacuum
+-- works on sixteen smaller tables. Every partition holds a mix of past and
+-- current events: no event can be detached or archived on its own, finished
+-- events are removed with DELETE, and their bloat lands in all partitions.
+-- Partitions grow with the table; hash does not bound the cost of past events.
+-- Range by event start or list by event would allow dropping old events, at
+-- the cost of partition maintenance per event and the newest partition taking
+-- every on-sale write. Runs once: skipped when event_seats is already
+-- partitioned. uq_event_seat duplicated the primary key and is not recreated.
+--
+
+DO $$
+DECLARE
+    partitions CONSTANT int := 16;
+    i int;
+BEGIN
+    IF (SELECT c.relkind FROM pg_class c WHERE c.oid = 'public.event_seats'::regclass) = 'p' THEN
+        RETURN;
+    END IF;
+
+    LOCK TABLE public.event_seats IN ACCESS EXCLUSIVE MODE;
+
+    ALTER TABLE public.booking_items DROP CONSTRAINT IF EXISTS fk_booking_items_event_seat;
+    ALTER TABLE public.event_seats RENAME TO event_seats_unpartitioned;
+
+    CREATE TABLE public.event_seats (LIKE public.event_seats_unpartitioned INCLUDING DEFAULTS)
+        PARTITION BY HASH (event_id);
+
+    ALTER TABLE public.event_seats OWNER TO postgres;
+
+    FOR i IN 0 .. partitions - 1 LOOP
+        EXECUTE format(
+                'CREATE TABLE public.event_seats_p%s PARTITION OF public.event_seats '
+                    'FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                lpad(i::text, 2, '0'), partitions, i);
+    END LOOP;
+
+    INSERT INTO public.event_seats
+    SELECT * FROM public.event_seats_unpartitioned;
+
+    DROP TABLE public.event_seats_unpartitioned;
+
+    ALTER TABLE public.event_seats
+        ADD CONSTRAINT event_seats_pkey PRIMARY KEY (event_id, seat_id);
+
+    CREATE INDEX idx_event_seats_state
+        ON public.event_seats USING btree (event_id, state);
+
+    CREATE INDEX idx_event_seats_hold_expiry
+        ON public.event_seats USING btree (hold_expires_at)
+        WHERE ((state)::text = 'HELD'::text);
+
+    ALTER TABLE public.event_seats
+        ADD CONSTRAINT event_seats_event_id_fkey FOREIGN KEY (event_id) REFERENCES public.events(event_id);
+
+    ALTER TABLE public.event_seats
+        ADD CONSTRAINT event_seats_seat_id_fkey FOREIGN KEY (seat_id) REFERENCES public.seats(seat_id);
+
+    ALTER TABLE public.booking_items
+        ADD CONSTRAINT fk_booking_items_event_seat FOREIGN KEY (event_id, seat_id) REFERENCES public.event_seats(event_id, seat_id);
+
+    CREATE TRIGGER trg_event_seats_version
+        BEFORE UPDATE OF state ON public.event_seats
+        FOR EACH ROW EXECUTE FUNCTION public.event_seats_bump_version();
+
+    CREATE TRIGGER trg_event_seats_notify
+        AFTER UPDATE OF state ON public.event_seats
+        FOR EACH ROW
+        WHEN (OLD.state IS DISTINCT FROM NEW.state)
+        EXECUTE FUNCTION public.event_seats_notify();
+END;
+$$;
+
+
+--
+-- Migration: seat abuse ledger
+-- One row per (user, seat) holding the newest hold expiries of that user on
+-- that seat, so the booking path's abuse check is a primary key lookup
+-- instead of a year of security_logs. Maintained by the hold expiry reaper;
+-- backfilled once from the BOOK_EXPIRED_SEAT_<seat_id> log rows.
+--
+
+CREATE TABLE IF NOT EXISTS public.seat_abuse_ledger (
+    user_id bigint NOT NULL,
+    seat_id bigint NOT NULL,
+    expired_at timestamp without time zone[] NOT NULL,
+    CONSTRAINT seat_abuse_ledger_pkey PRIMARY KEY (user_id, seat_id)
+);
+
+ALTER TABLE public.seat_abuse_ledger OWNER TO postgres;
+
+INSERT INTO public.seat_abuse_ledger (user_id, seat_id, expired_at)
+SELECT
+    user_id,
+    substring(action FROM 19)::bigint,
+    (array_agg(created_at ORDER BY created_at DESC))[1:16]
+FROM public.security_logs
+WHERE action LIKE 'BOOK\_EXPIRED\_SEAT\_%'
+  AND substring(action FROM 19) ~ '^[0-9]+$'
+  AND user_id IS NOT NULL
+  AND created_at >= now() - INTERVAL '525600 minutes'
+GROUP BY user_id, substring(action FROM 19)::bigint
+ON CONFLICT (user_id, seat_id) DO NOTHING;
+
+
+--
+-- Migration: shared waiting room
+-- Every client runs its own process, so the admission queue lives here.
+-- admission_tokens has admission.maxActive rows per event; a user is admitted
+-- while holding an unexpired token. admissions is the queue of waiting users.
+-- Clients claim free tokens and queue heads with FOR UPDATE SKIP LOCKED, so
+-- concurrent clients never hand out the same token twice.
+--
+
+CREATE TABLE IF NOT EXISTS public.admission_queues (
+    event_id bigint NOT NULL,
+    admitted bigint DEFAULT 0 NOT NULL,
+    expired bigint DEFAULT 0 NOT NULL,
+    avg_session_ms double precision NOT NULL,
+    CONSTRAINT admission_queues_pkey PRIMARY KEY (event_id),
+    CONSTRAINT admission_queues_event_id_fkey FOREIGN KEY (event_id) REFERENCES public.events(event_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS public.admission_tokens (
+    event_id bigint NOT NULL,
+    slot integer NOT NULL,
+    ticket_id bigint,
+    user_id bigint,
+    admitted_at timestamp without time zone,
+    expires_at timestamp without time zone,
+    CONSTRAINT admission_tokens_pkey PRIMARY KEY (event_id, slot),
+    CONSTRAINT admission_tokens_event_id_fkey FOREIGN KEY (event_id) REFERENCES public.admission_queues(event_id) ON DELETE CASCADE
+);
+
+-- ahead / admitted_before: queue length and admissions so far when the ticket was taken,
+-- for a position estimate that needs no count per poll
+CREATE TABLE IF NOT EXISTS public.admissions (
+    ticket_id bigserial NOT NULL,
+    event_id bigint NOT NULL,
+    user_id bigint NOT NULL,
+    ahead bigint NOT NULL,
+    admitted_before bigint NOT NULL,
+    last_seen_at timestamp without time zone DEFAULT now() NOT NULL,
+    CONSTRAINT admissions_pkey PRIMARY KEY (ticket_id),
+    CONSTRAINT uq_admissions_event_user UNIQUE (event_id, user_id),
+    CONSTRAINT admissions_event_id_fkey FOREIGN KEY (event_id) REFERENCES public.admission_queues(event_id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_admissions_queue ON public.admissions USING btree (event_id, ticket_id);
+
+ALTER TABLE public.admission_queues OWNER TO postgres;
+ALTER TABLE public.admission_tokens OWNER TO postgres;
+ALTER TABLE public.admissions OWNER TO postgres;
+
+
+--
+-- Migration: seat transitions
+-- Every state change on event_seats is also written to seat_transitions, so
+-- a client whose seat change feed dropped, or that restarts from a local
+-- snapshot, can replay what every writer changed since then instead of
+-- reloading the event. Inserted seats are recorded as one row per event and
+-- statement with no seat, which makes caches reload the layout. Rows carry
+-- their transaction's start time and are pruned by the hold expiry reaper
+-- after seat.transitions.retentionMs.
+--
+
+CREATE TABLE IF NOT EXISTS public.seat_transitions (
+    event_id bigint NOT NULL,
+    seat_id bigint,
+    version bigint NOT NULL,
+    old_state character varying(20),
+    new_state character varying(20),
+    held_by_user_id bigint,
+    hold_expires_at timestamp without time zone,
+    changed_at timestamp without time zone DEFAULT now() NOT NULL
+);
+
+ALTER TABLE public.seat_transitions OWNER TO postgres;
+
+CREATE INDEX IF NOT EXISTS idx_seat_transitions_event
+    ON public.seat_transitions USING btree (event_id, changed_at);
+
+CREATE INDEX IF NOT EXISTS idx_seat_transitions_changed_at
+    ON public.seat_transitions USING btree (changed_at);
+
+CREATE OR REPLACE FUNCTION public.event_seats_record_transition() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    INSERT INTO public.seat_transitions
+        (event_id, seat_id, version, old_state, new_state, held_by_user_id, hold_expires_at)
+    VALUES
+        (NEW.event_id, NEW.seat_id, NEW.version, OLD.state, NEW.state, NEW.held_by_user_id, NEW.hold_expires_at);
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION public.event_seats_record_added() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    INSERT INTO public.seat_transitions (event_id, version)
+    SELECT a.event_id, nextval('public.event_seats_version_seq')
+    FROM (SELECT DISTINCT event_id FROM added) a;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE TRIGGER trg_event_seats_transition
+    AFTER UPDATE OF state ON public.event_seats
+    FOR EACH ROW
+    WHEN (OLD.state IS DISTINCT FROM NEW.state)
+    EXECUTE FUNCTION public.event_seats_record_transition();
+
+CREATE OR REPLACE TRIGGER trg_event_seats_added
+    AFTER INSERT ON public.event_seats
+    REFERENCING NEW TABLE AS added
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION public.event_seats_record_added();
+
+
 -- Completed on 2026-02-25 02:38:51
 
 --